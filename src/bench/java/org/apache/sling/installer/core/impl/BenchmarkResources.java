@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.apache.sling.installer.core.impl.tasks.MockInstallationListener;
+import org.osgi.framework.Constants;
+
+/**
+ * Creates the resources used by the benchmarks.
+ */
+final class BenchmarkResources {
+
+    static final String SCHEME = "bench";
+
+    private BenchmarkResources() {
+        // static methods only
+    }
+
+    /**
+     * Set up the shared file data store.
+     */
+    static void setUpDataStore() {
+        new FileDataStore(new MockBundleContext());
+    }
+
+    /**
+     * Create a dictionary with the given number of properties.
+     */
+    static Dictionary<String, Object> createDictionary(final String prefix, final int size) {
+        final Dictionary<String, Object> dict = new Hashtable<>();
+        for (int i = 0; i < size; i++) {
+            dict.put(prefix + ".key" + i, "value" + i);
+        }
+        return dict;
+    }
+
+    /**
+     * Create a transformed configuration resource.
+     */
+    static RegisteredResourceImpl createConfig(final String url, final String pid, final int priority)
+            throws IOException {
+        final InternalResource internal = InternalResource.create(
+                SCHEME, new InstallableResource(url, null, createDictionary(url, 5), null, null, priority));
+        final RegisteredResourceImpl rr = RegisteredResourceImpl.create(internal);
+        return (RegisteredResourceImpl) rr.clone(createResult(pid));
+    }
+
+    private static TransformationResult createResult(final String pid) {
+        final TransformationResult result = new TransformationResult();
+        result.setId(pid);
+        result.setResourceType(InstallableResource.TYPE_CONFIG);
+        return result;
+    }
+
+    /**
+     * Create a persistent resource list with the given number of configurations.
+     */
+    static PersistentResourceList createList(final File file, final int count) throws IOException {
+        final PersistentResourceList list = new PersistentResourceList(file, new MockInstallationListener());
+        for (int i = 0; i < count; i++) {
+            final String url = "/apps/config/pid" + i;
+            final RegisteredResource rr = list.addOrUpdate(InternalResource.create(
+                    SCHEME, new InstallableResource(url, null, createDictionary(url, 5), null, null, null)));
+            list.transform(rr, new TransformationResult[] {createResult("pid" + i)});
+        }
+        return list;
+    }
+
+    /**
+     * Create a bundle with the given number of entries, the manifest is written last.
+     */
+    static byte[] createBundle(final String symbolicName, final int entries) throws IOException {
+        final Manifest m = new Manifest();
+        m.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        m.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+        m.getMainAttributes().putValue(Constants.BUNDLE_VERSION, "1.0.0");
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (final JarOutputStream jos = new JarOutputStream(bos)) {
+            final byte[] content = new byte[1024];
+            for (int i = 0; i < entries; i++) {
+                jos.putNextEntry(new ZipEntry("content/entry" + i + ".txt"));
+                jos.write(content);
+                jos.closeEntry();
+            }
+            jos.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            m.write(jos);
+            jos.closeEntry();
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Create an untransformed bundle resource.
+     */
+    static RegisteredResourceImpl createBundleResource(final String url, final byte[] content) throws IOException {
+        final InternalResource internal = InternalResource.create(
+                SCHEME, new InstallableResource(url, new ByteArrayInputStream(content), null, null, null, null));
+        return RegisteredResourceImpl.create(internal);
+    }
+
+    /**
+     * Write a temporary file of the given size.
+     */
+    static File createFile(final int size) throws IOException {
+        final File file = File.createTempFile("benchmark", ".data");
+        file.deleteOnExit();
+        try (final OutputStream os = new FileOutputStream(file)) {
+            final byte[] buffer = new byte[8192];
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = (byte) i;
+            }
+            int remaining = size;
+            while (remaining > 0) {
+                final int len = Math.min(remaining, buffer.length);
+                os.write(buffer, 0, len);
+                remaining -= len;
+            }
+        }
+        return file;
+    }
+}
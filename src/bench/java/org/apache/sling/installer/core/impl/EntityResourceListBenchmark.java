@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.core.impl.tasks.MockInstallationListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations on an entity with many candidate resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntityResourceListBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int candidates;
+
+    private EntityResourceList list;
+
+    private RegisteredResourceImpl[] resources;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkResources.setUpDataStore();
+        this.list = new EntityResourceList("config:pid", new MockInstallationListener());
+        this.resources = new RegisteredResourceImpl[this.candidates];
+        for (int i = 0; i < this.candidates; i++) {
+            this.resources[i] = BenchmarkResources.createConfig("/apps/config" + i + "/pid", "pid", i);
+            this.list.addOrUpdate(this.resources[i]);
+        }
+    }
+
+    private RegisteredResourceImpl nextResource() {
+        this.next = (this.next + 1) % this.candidates;
+        return this.resources[this.next];
+    }
+
+    @Benchmark
+    public TaskResource getActiveResource() {
+        return this.list.getActiveResource();
+    }
+
+    @Benchmark
+    public TaskResource changeStateAndGetActiveResource() {
+        final RegisteredResourceImpl rsrc = this.nextResource();
+        rsrc.setState(
+                rsrc.getState() == ResourceState.INSTALL ? ResourceState.IGNORED : ResourceState.INSTALL, null);
+        return this.list.getActiveResource();
+    }
+
+    @Benchmark
+    public EntityResourceList addOrUpdateExisting() {
+        this.list.addOrUpdate(this.nextResource());
+        return this.list;
+    }
+}
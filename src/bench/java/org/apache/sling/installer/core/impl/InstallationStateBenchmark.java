@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Publishing the installation state, which is what the installer does
+ * for {@link org.apache.sling.installer.api.info.InfoProvider#getInstallationState()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InstallationStateBenchmark {
+
+    @Param({"1000", "10000"})
+    public int resources;
+
+    private File file;
+
+    private PersistentResourceList list;
+
+    private InstallationStateSnapshot snapshot;
+
+    private String[] entityIds;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkResources.setUpDataStore();
+        this.file = File.createTempFile("resources", ".ser");
+        this.list = BenchmarkResources.createList(this.file, this.resources);
+        this.snapshot = new InstallationStateSnapshot();
+        this.snapshot.publish(this.list);
+        this.entityIds = this.list.getEntityIds().toArray(new String[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Benchmark
+    public InstallationState publishUnchanged() {
+        return this.snapshot.publish(this.list);
+    }
+
+    @Benchmark
+    public InstallationState publishAfterStateChange() {
+        this.next = (this.next + 1) % this.entityIds.length;
+        final EntityResourceList group = this.list.getEntityResourceList(this.entityIds[this.next]);
+        final RegisteredResourceImpl rsrc = (RegisteredResourceImpl) group.getFirstResource();
+        rsrc.setState(
+                rsrc.getState() == ResourceState.INSTALL ? ResourceState.INSTALLED : ResourceState.INSTALL, null);
+        return this.snapshot.publish(this.list);
+    }
+
+    @Benchmark
+    public InstallationState getPublishedState() {
+        return this.snapshot.get();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creating internal resources for the supported configuration formats.
+ * With a digest, the parsed dictionary is taken from the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InternalResourceBenchmark {
+
+    @Param({"cfg", "properties.xml", "config", "cfg.json"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean withDigest;
+
+    private String id;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        BenchmarkResources.setUpDataStore();
+        InternalResource.clearDictionaryCache();
+        final StringBuilder sb = new StringBuilder();
+        if ("cfg".equals(this.format)) {
+            this.id = "/apps/config/my.pid.cfg";
+            for (int i = 0; i < 20; i++) {
+                sb.append("key").append(i).append("=value").append(i).append('\n');
+            }
+        } else if ("properties.xml".equals(this.format)) {
+            this.id = "/apps/config/my.pid.properties";
+            sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            sb.append("<!DOCTYPE properties SYSTEM \"http://java.sun.com/dtd/properties.dtd\">\n");
+            sb.append("<properties>\n");
+            for (int i = 0; i < 20; i++) {
+                sb.append("<entry key=\"key").append(i).append("\">value").append(i).append("</entry>\n");
+            }
+            sb.append("</properties>\n");
+        } else if ("config".equals(this.format)) {
+            this.id = "/apps/config/my.pid.config";
+            for (int i = 0; i < 20; i++) {
+                sb.append("key").append(i).append("=\"value").append(i).append("\"\n");
+            }
+        } else {
+            this.id = "/apps/config/my.pid.cfg.json";
+            sb.append("{\n");
+            for (int i = 0; i < 20; i++) {
+                if (i > 0) {
+                    sb.append(",\n");
+                }
+                sb.append("\"key").append(i).append("\" : \"value").append(i).append('"');
+            }
+            sb.append("\n}\n");
+        }
+        this.content = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public InternalResource create() throws IOException {
+        return InternalResource.create(
+                BenchmarkResources.SCHEME,
+                new InstallableResource(
+                        this.id,
+                        new ByteArrayInputStream(this.content),
+                        null,
+                        this.withDigest ? "digest" : null,
+                        null,
+                        null));
+    }
+}
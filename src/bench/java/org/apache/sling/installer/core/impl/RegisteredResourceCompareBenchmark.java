@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Constants;
+
+/**
+ * Comparing resources of the same entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegisteredResourceCompareBenchmark {
+
+    private RegisteredResourceImpl release1;
+
+    private RegisteredResourceImpl release2;
+
+    private RegisteredResourceImpl snapshot1;
+
+    private RegisteredResourceImpl snapshot2;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkResources.setUpDataStore();
+        this.release1 = create("/apps/a/pid", "1.2.3", 100);
+        this.release2 = create("/apps/b/pid", "1.2.3", 200);
+        this.snapshot1 = create("/apps/c/pid", "1.2.4.SNAPSHOT", 100);
+        this.snapshot2 = create("/apps/d/pid", "1.2.4.SNAPSHOT", 100);
+    }
+
+    private static RegisteredResourceImpl create(final String url, final String version, final int priority)
+            throws IOException {
+        final RegisteredResourceImpl rr = BenchmarkResources.createConfig(url, "pid", priority);
+        rr.setAttribute(Constants.BUNDLE_VERSION, version);
+        return rr;
+    }
+
+    @Benchmark
+    public int compareByPriority() {
+        return RegisteredResourceImpl.compare(this.release1, this.release2);
+    }
+
+    @Benchmark
+    public int compareSnapshots() {
+        return RegisteredResourceImpl.compare(this.snapshot1, this.snapshot2);
+    }
+
+    @Benchmark
+    public int compareByVersion() {
+        return RegisteredResourceImpl.compare(this.release1, this.snapshot1);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.osgi.annotation.versioning.ConsumerType;
+
+/**
+ * A content supplier opens the data of an {@link InstallableResource}
+ * on demand. The installer only opens the content if it actually needs
+ * the data, for example if it has not seen the resource with the same
+ * digest before. Unchanged files are registered without opening
+ * the content at all. The content of configurations is always read,
+ * as the installer can't tell from the digest whether it changed.
+ *
+ * @since 3.3
+ */
+@ConsumerType
+public interface ContentSupplier {
+
+    /**
+     * Open an input stream to the data. The installer closes the stream.
+     * This method might be called more than once or never.
+     * @return The input stream
+     * @throws IOException If the data can't be opened
+     */
+    InputStream open() throws IOException;
+}
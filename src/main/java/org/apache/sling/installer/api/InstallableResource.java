@@ -136,6 +136,7 @@ public class InstallableResource {
     private final String id;
     private final String digest;
     private final InputStream inputStream;
+    private final ContentSupplier contentSupplier;
     private final Dictionary<String, Object> dictionary;
     private final int priority;
     private final String resourceType;
@@ -163,10 +164,64 @@ public class InstallableResource {
             final String digest,
             final String type,
             final Integer priority) {
+        this(id, is, null, dict, digest, type, priority);
+    }
+
+    /**
+     * Create a data object with content which is opened on demand.
+     * The installer only opens the content if it needs the data. Therefore
+     * the provider should always set a digest, otherwise the installer has
+     * to open the content to calculate one.
+     * @param id Unique id for the resource, For auto detection of the resource
+     *           type, the id should contain an extension like .jar, .cfg etc.
+     * @param content The supplier for the content
+     * @param dict An optional dictionary with additional information
+     * @param digest A digest of the data
+     * @param type The resource type if known, otherwise {@link #TYPE_PROPERTIES}
+     *             or {@link #TYPE_FILE}
+     * @param priority Optional priority - if not specified {@link #DEFAULT_PRIORITY}
+     *                 is used
+     * @return The installable resource
+     * @throws IllegalArgumentException if something is wrong
+     * @since 3.3
+     */
+    public static InstallableResource create(
+            final String id,
+            final ContentSupplier content,
+            final Dictionary<String, Object> dict,
+            final String digest,
+            final String type,
+            final Integer priority) {
+        if (content == null) {
+            throw new IllegalArgumentException("content must not be null.");
+        }
+        return new InstallableResource(id, null, content, dict, digest, type, priority);
+    }
+
+    /**
+     * Create a data object with either an input stream, a content supplier or a dictionary.
+     * @param id Unique id for the resource
+     * @param is The input stream to the data or
+     * @param content The supplier for the data or
+     * @param dict A dictionary with data
+     * @param digest A digest of the data
+     * @param type The resource type if known
+     * @param priority Optional priority
+     * @throws IllegalArgumentException if something is wrong
+     * @since 3.3
+     */
+    protected InstallableResource(
+            final String id,
+            final InputStream is,
+            final ContentSupplier content,
+            final Dictionary<String, Object> dict,
+            final String digest,
+            final String type,
+            final Integer priority) {
         if (id == null) {
             throw new IllegalArgumentException("id must not be null.");
         }
-        if (is == null) {
+        if (is == null && content == null) {
             // if input stream is null, config through dictionary is expected!
             if (dict == null) {
                 throw new IllegalArgumentException("dictionary must not be null (or input stream must not be null).");
@@ -175,6 +230,7 @@ public class InstallableResource {
 
         this.id = id;
         this.inputStream = is;
+        this.contentSupplier = content;
         this.dictionary = dict;
         this.digest = digest;
         this.priority = (priority != null ? priority : DEFAULT_PRIORITY);
@@ -211,6 +267,17 @@ public class InstallableResource {
         return this.inputStream;
     }
 
+    /**
+     * Return the supplier for the data of this resource if the resource
+     * has been created with a {@link ContentSupplier}. In this case
+     * {@link #getInputStream()} returns {@code null}.
+     * @return The content supplier or {@code null}.
+     * @since 3.3
+     */
+    public ContentSupplier getContentSupplier() {
+        return this.contentSupplier;
+    }
+
     /**
      * Return this resource's dictionary.
      * Null if resource contains an InputStream instead. If this resource is of
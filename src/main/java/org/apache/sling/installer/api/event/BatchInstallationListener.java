@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.api.event;
+
+import java.util.List;
+
+import org.osgi.annotation.versioning.ConsumerType;
+
+/**
+ * Optional listener receiving {@link InstallationEvent.TYPE#PROCESSED} events
+ * in chunks.
+ *
+ * Installation listeners are notified asynchronously. A listener implementing
+ * this interface gets consecutive processed events with a single call of
+ * {@link #onEvents(List)} instead of one {@link #onEvent(InstallationEvent)}
+ * call per event. {@link InstallationEvent.TYPE#STARTED} and
+ * {@link InstallationEvent.TYPE#SUSPENDED} events are still delivered through
+ * {@link #onEvent(InstallationEvent)}, in order with the processed events.
+ *
+ * @since 1.1
+ */
+@ConsumerType
+public interface BatchInstallationListener extends InstallationListener {
+
+    /**
+     * Receive a chunk of processed events.
+     * @param events The processed events in the order they occurred, never empty.
+     */
+    void onEvents(List<InstallationEvent> events);
+}
@@ -45,8 +45,9 @@ public interface InstallationEvent {
      * Return the source of the event.
      * For {@link TYPE#STARTED} and {@link TYPE#SUSPENDED} events
      * this is <code>null</code>.
-     * For {@link TYPE#PROCESSED} events this is a
-     * {@link org.apache.sling.installer.api.tasks.TaskResource}.
+     * For {@link TYPE#PROCESSED} events this is a read-only copy of the
+     * {@link org.apache.sling.installer.api.tasks.TaskResource} taken when
+     * the resource was processed.
      * @return The source of the event.
      */
     Object getSource();
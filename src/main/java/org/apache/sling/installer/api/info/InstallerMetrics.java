@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.api.info;
+
+import java.util.Map;
+
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The installer metrics provide counters about the OSGi installer.
+ * The metrics are maintained by the installer while processing, reading
+ * them is cheap and does not require to create the installation state.
+ * The installer registers this interface as a service, allowing monitoring
+ * solutions to pick up the values.
+ *
+ * The resource related counts reflect the state after the last installer
+ * cycle.
+ *
+ * @since 1.2
+ */
+@ProviderType
+public interface InstallerMetrics {
+
+    /**
+     * Count of active resource groups.
+     * @return The count of active resource groups
+     * @see InstallationState#getActiveResources()
+     */
+    int getActiveResourceGroupCount();
+
+    /**
+     * Count of installed resource groups.
+     * @return The count of installed resource groups
+     * @see InstallationState#getInstalledResources()
+     */
+    int getInstalledResourceGroupCount();
+
+    /**
+     * Count of resources by state.
+     * @return An unmodifiable map, states without resources are not contained.
+     */
+    Map<ResourceState, Integer> getResourceCountByState();
+
+    /**
+     * Count of resources by resource type.
+     * @return An unmodifiable map, types without resources are not contained.
+     */
+    Map<String, Integer> getResourceCountByType();
+
+    /**
+     * Count of untransformed resources.
+     * @return The count of untransformed resources
+     */
+    int getUntransformedResourceCount();
+
+    /**
+     * Count of new resources which are not processed yet.
+     * @return The count of new resources
+     */
+    int getNewResourceCount();
+
+    /**
+     * Count of resource updates reported by clients which are not processed yet.
+     * @return The count of updates
+     */
+    int getUpdateInfoCount();
+
+    /**
+     * Count of resource removals reported by clients which are not processed yet.
+     * @return The count of removals
+     */
+    int getRemovedResourceCount();
+
+    /**
+     * Count of installer cycles since start.
+     * @return The cycle count
+     */
+    long getCycleCount();
+
+    /**
+     * Count of executed tasks since start.
+     * @return The count of executed tasks
+     */
+    long getExecutedTaskCount();
+
+    /**
+     * Count of failed tasks since start. A task fails if its execution throws an exception
+     * or if it sets the state of its resource to {@link org.apache.sling.installer.api.tasks.ResourceState#IGNORED}
+     * with an error.
+     * @return The count of failed tasks
+     */
+    long getFailedTaskCount();
+
+    /**
+     * Count of executed tasks since start by task class name.
+     * @return An unmodifiable map
+     */
+    Map<String, Long> getExecutedTaskCountByClass();
+
+    /**
+     * Count of failed tasks since start by task class name.
+     * @return An unmodifiable map
+     */
+    Map<String, Long> getFailedTaskCountByClass();
+
+    /**
+     * Number of bytes written to persist the installer state since start.
+     * @return The number of bytes
+     */
+    long getPersistedBytes();
+
+    /**
+     * Size of the data directory of the installer in bytes.
+     * @return The size in bytes
+     */
+    long getDataDirectorySize();
+
+    /**
+     * Timing statistics of the phases of the installer cycle.
+     * @return An unmodifiable map by phase name, in the order the phases run within a cycle
+     * @see PhaseStatistics
+     * @since 1.2
+     */
+    Map<String, PhaseStatistics> getPhaseStatistics();
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.api.info;
+
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Timing statistics of one phase of the installer cycle.
+ *
+ * Each installer cycle runs through a fixed set of phases, the
+ * installer records the duration and the number of processed items
+ * each time a phase runs. Durations are collected in a histogram with
+ * fixed bucket bounds.
+ *
+ * @since 1.2
+ */
+@ProviderType
+public interface PhaseStatistics {
+
+    /** The complete cycle, the items are the executed tasks. */
+    String CYCLE = "cycle";
+
+    /** Invoking the resource updaters, the items are the invoked updaters. */
+    String RESOURCE_UPDATERS = "resourceUpdaters";
+
+    /** Processing updates and removals reported by clients, the items are the processed changes. */
+    String UPDATE_INFOS = "updateInfos";
+
+    /** Merging newly registered resources, the items are the merged changes. */
+    String MERGE = "merge";
+
+    /** Invoking the resource transformers, the items are the transformed resources. */
+    String TRANSFORM = "transform";
+
+    /** Computing the tasks, the items are the computed tasks. */
+    String COMPUTE_TASKS = "computeTasks";
+
+    /** Executing the tasks, the items are the executed tasks. */
+    String EXECUTE_TASKS = "executeTasks";
+
+    /** Compacting and saving the resource list after the tasks are executed, the items are the written bytes. */
+    String PERSIST = "persist";
+
+    /**
+     * The name of the phase.
+     * @return The name
+     */
+    String getPhase();
+
+    /**
+     * How often the phase ran since start.
+     * @return The count
+     */
+    long getCount();
+
+    /**
+     * The total duration of the phase since start in microseconds.
+     * @return The duration
+     */
+    long getTotalTime();
+
+    /**
+     * The maximum duration of the phase in microseconds.
+     * @return The duration
+     */
+    long getMaxTime();
+
+    /**
+     * The duration of the last run of the phase in microseconds.
+     * @return The duration
+     */
+    long getLastTime();
+
+    /**
+     * The total number of items processed by the phase since start.
+     * @return The number of items
+     */
+    long getItemCount();
+
+    /**
+     * The number of items processed in the last run of the phase.
+     * @return The number of items
+     */
+    long getLastItemCount();
+
+    /**
+     * The inclusive upper bounds of the histogram buckets in milliseconds.
+     * The last bucket has no upper bound and therefore the returned
+     * array is one element shorter than the bucket counts.
+     * @return A new array with the bounds
+     */
+    long[] getBucketBounds();
+
+    /**
+     * The number of runs per histogram bucket.
+     * @return A new array with the counts
+     */
+    long[] getBucketCounts();
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.sling.installer.api.jmx;
 
+import javax.management.openmbean.TabularData;
+
 import org.osgi.annotation.versioning.ProviderType;
 
 @ProviderType
@@ -47,4 +49,64 @@ public interface InstallerMBean {
      * @return Time since last suspended.
      */
     long getSuspendedSince();
+
+    /**
+     * Count of untransformed resources.
+     * @return The count of untransformed resources
+     * @since 1.1
+     */
+    int getUntransformedResourceCount();
+
+    /**
+     * Count of resources, updates and removals reported by clients which
+     * are not processed yet.
+     * @return The count of pending changes
+     * @since 1.1
+     */
+    int getPendingChangeCount();
+
+    /**
+     * Count of installer cycles since start.
+     * @return The cycle count
+     * @since 1.1
+     */
+    long getCycleCount();
+
+    /**
+     * Count of executed tasks since start.
+     * @return The count of executed tasks
+     * @since 1.1
+     */
+    long getExecutedTaskCount();
+
+    /**
+     * Count of failed tasks since start.
+     * @return The count of failed tasks
+     * @since 1.1
+     */
+    long getFailedTaskCount();
+
+    /**
+     * Number of bytes written to persist the installer state since start.
+     * @return The number of bytes
+     * @since 1.1
+     */
+    long getPersistedBytes();
+
+    /**
+     * Size of the data directory of the installer in bytes.
+     * @return The size in bytes
+     * @since 1.1
+     */
+    long getDataDirectorySize();
+
+    /**
+     * Timing statistics of the phases of the installer cycle, one row per
+     * phase with the count, the total, maximum and last duration in
+     * microseconds, the processed items and the histogram bucket counts.
+     * @return The statistics
+     * @see org.apache.sling.installer.api.info.PhaseStatistics
+     * @since 1.1
+     */
+    TabularData getPhaseStatistics();
 }
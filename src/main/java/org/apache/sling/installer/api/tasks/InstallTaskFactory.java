@@ -38,6 +38,15 @@ public interface InstallTaskFactory {
      */
     String NAME = "installtaskfactory.name";
 
+    /**
+     * Optional service registration property listing the resource types
+     * handled by the task factory. If set, the factory is only asked to
+     * create tasks for groups whose active resource has one of these types.
+     * The value of this property must be of type String or String array.
+     * @since 1.7.0
+     */
+    String RESOURCE_TYPES = "installtaskfactory.resourcetypes";
+
     /**
      * Creates an {@link InstallTask} for the resource or
      * <code>null</code> if the factory does not support the resource.
@@ -38,6 +38,25 @@ public interface ResourceTransformer {
      */
     String NAME = "resourcetransformer.name";
 
+    /**
+     * Optional service registration property listing the resource types
+     * handled by the transformer. If set, the transformer is only invoked
+     * for registered resources of one of these types.
+     * The value of this property must be of type String or String array.
+     * @since 1.7.0
+     */
+    String RESOURCE_TYPES = "resourcetransformer.resourcetypes";
+
+    /**
+     * Optional service registration property listing the url extensions
+     * handled by the transformer, like {@code .jar}. If set, the transformer
+     * is only invoked for registered resources with an url ending with
+     * one of these extensions.
+     * The value of this property must be of type String or String array.
+     * @since 1.7.0
+     */
+    String URL_EXTENSIONS = "resourcetransformer.extensions";
+
     /**
      * Try to transform the registered resource.
      * If the transformer is not responsible for transforming the
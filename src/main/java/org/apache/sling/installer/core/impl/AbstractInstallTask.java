@@ -64,4 +64,13 @@ public abstract class AbstractInstallTask extends InstallTask {
     protected TaskSupport getTaskSupport() {
         return this.support;
     }
+
+    /**
+     * Get the structured sort key of this task.
+     * If a task provides such a key, {@link #getSortKey()} must return its string representation.
+     * @return The key or {@code null} if the task only provides the string sort key.
+     */
+    public TaskSortKey getTaskSortKey() {
+        return null;
+    }
 }
@@ -26,10 +26,11 @@ import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
 
+import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.OsgiInstaller;
 import org.apache.sling.installer.api.ResourceChangeListener;
-import org.apache.sling.installer.api.event.InstallationListener;
 import org.apache.sling.installer.api.info.InfoProvider;
+import org.apache.sling.installer.api.info.InstallerMetrics;
 import org.apache.sling.installer.api.jmx.InstallerMBean;
 import org.apache.sling.installer.api.tasks.InstallTaskFactory;
 import org.apache.sling.installer.api.tasks.ResourceTransformer;
@@ -81,6 +82,7 @@ public class Activator implements BundleActivator {
         };
         osgiControllerServiceReg = context.registerService(serviceInterfaces, osgiControllerService, props);
 
+        registerMetrics(context);
         registerJmxBean(context);
     }
 
@@ -109,6 +111,14 @@ public class Activator implements BundleActivator {
         this.services.clear();
     }
 
+    private void registerMetrics(final BundleContext context) {
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put(Constants.SERVICE_DESCRIPTION, "Apache Sling Installer Metrics");
+        props.put(Constants.SERVICE_VENDOR, VENDOR);
+        registrations.add(
+                context.registerService(InstallerMetrics.class.getName(), osgiControllerService.getMetrics(), props));
+    }
+
     private void registerJmxBean(BundleContext context) throws MalformedObjectNameException {
         Hashtable<String, String> jmxProps = new Hashtable<String, String>();
         jmxProps.put("type", "Installer");
@@ -119,8 +129,8 @@ public class Activator implements BundleActivator {
         mbeanProps.put(Constants.SERVICE_VENDOR, VENDOR);
         mbeanProps.put("jmx.objectname", new ObjectName("org.apache.sling.installer", jmxProps));
         ServiceRegistration mbeanReg = context.registerService(
-                new String[] {InstallerMBean.class.getName(), InstallationListener.class.getName()},
-                new InstallerMBeanImpl(osgiControllerService),
+                InstallerMBean.class.getName(),
+                new InstallerMBeanImpl(osgiControllerService.getMetrics(), osgiControllerService.getInstallListener()),
                 mbeanProps);
         registrations.add(mbeanReg);
     }
@@ -138,6 +148,16 @@ public class Activator implements BundleActivator {
             props.put(Constants.SERVICE_DESCRIPTION, service.getDescription());
             props.put(Constants.SERVICE_VENDOR, VENDOR);
             props.put(Constants.SERVICE_RANKING, new Integer(-100));
+            if (service instanceof BundleTaskCreator) {
+                props.put(InstallTaskFactory.RESOURCE_TYPES, new String[] {
+                    InstallableResource.TYPE_BUNDLE, PersistentResourceList.RESTART_ACTIVE_BUNDLES_TYPE
+                });
+            }
+            if (service instanceof DefaultTransformer) {
+                // the default transformer only handles bundle files
+                props.put(ResourceTransformer.RESOURCE_TYPES, InstallableResource.TYPE_FILE);
+                props.put(ResourceTransformer.URL_EXTENSIONS, ".jar");
+            }
 
             final String[] serviceInterfaces;
             if (service instanceof ResourceTransformer && service instanceof InstallTaskFactory) {
@@ -154,6 +174,10 @@ public class Activator implements BundleActivator {
             if (serviceInterfaces != null) {
                 this.services.add(service);
                 service.init(context, this.osgiControllerService, this.osgiControllerService);
+                if (service instanceof BundleTaskCreator) {
+                    this.osgiControllerService.setBundleLocationIndex(
+                            ((BundleTaskCreator) service).getBundleLocationIndex());
+                }
                 this.registrations.add(context.registerService(serviceInterfaces, service, props));
             }
         }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.apache.sling.installer.core.impl.util.InstallerEventType;
+import org.slf4j.Logger;
+
+/**
+ * Measures the phases of the installer cycles and records them in the metrics.
+ * If a cycle takes longer than the threshold, a summary of its phases is logged.
+ * Each cycle is reported as a flight recorder event if enabled.
+ * This class is only used by the installer thread.
+ */
+class CycleTimer {
+
+    /** The phases reported in the cycle event, in the order of the event fields. */
+    private static final String[] PHASES = {
+        PhaseStatistics.RESOURCE_UPDATERS,
+        PhaseStatistics.UPDATE_INFOS,
+        PhaseStatistics.MERGE,
+        PhaseStatistics.TRANSFORM,
+        PhaseStatistics.COMPUTE_TASKS,
+        PhaseStatistics.EXECUTE_TASKS,
+        PhaseStatistics.PERSIST
+    };
+
+    private final InstallerMetricsImpl metrics;
+
+    private final Logger logger;
+
+    /** The threshold for the summary in nanoseconds, {@code 0} to disable it. */
+    private final long threshold;
+
+    /** The phases of the current cycle, only collected if the summary is enabled. */
+    private final StringBuilder summary = new StringBuilder();
+
+    private long cycleStart;
+
+    /** The executed task count when the current cycle started. */
+    private long executedTasks;
+
+    /** The durations of the phases of the current cycle, only collected if the event is enabled. */
+    private final long[] phaseDurations = new long[PHASES.length];
+
+    /** The event of the current cycle. */
+    private InstallerEventType.Event event;
+
+    /**
+     * Create a new timer.
+     * @param metrics The metrics
+     * @param logger The logger for the summary
+     * @param thresholdMillis The threshold in milliseconds, a value less or equal to zero disables the summary
+     */
+    public CycleTimer(final InstallerMetricsImpl metrics, final Logger logger, final long thresholdMillis) {
+        this.metrics = metrics;
+        this.logger = logger;
+        this.threshold = thresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(thresholdMillis) : 0;
+    }
+
+    /**
+     * Start a new cycle.
+     */
+    public void cycleStarted() {
+        this.metrics.cycleStarted();
+        this.summary.setLength(0);
+        this.executedTasks = this.metrics.getExecutedTaskCount();
+        this.event = InstallerEventType.CYCLE.begin();
+        if (this.event.isEnabled()) {
+            Arrays.fill(this.phaseDurations, 0L);
+        }
+        this.cycleStart = System.nanoTime();
+    }
+
+    /**
+     * Record a phase.
+     * @param phase The phase
+     * @param start The start time of the phase as returned by {@link System#nanoTime()}
+     * @param items The number of processed items
+     */
+    public void phaseCompleted(final String phase, final long start, final long items) {
+        final long duration = System.nanoTime() - start;
+        this.metrics.phaseCompleted(phase, duration, items);
+        if (this.event != null && this.event.isEnabled()) {
+            for (int i = 0; i < PHASES.length; i++) {
+                if (PHASES[i].equals(phase)) {
+                    this.phaseDurations[i] += duration;
+                }
+            }
+        }
+        if (this.threshold > 0) {
+            if (this.summary.length() > 0) {
+                this.summary.append(", ");
+            }
+            this.summary
+                    .append(phase)
+                    .append('=')
+                    .append(TimeUnit.NANOSECONDS.toMillis(duration))
+                    .append("ms/")
+                    .append(items);
+        }
+    }
+
+    /**
+     * Finish the current cycle.
+     */
+    public void cycleCompleted() {
+        final long duration = System.nanoTime() - this.cycleStart;
+        final long executed = this.metrics.getExecutedTaskCount() - this.executedTasks;
+        this.metrics.phaseCompleted(PhaseStatistics.CYCLE, duration, executed);
+        if (this.event != null && this.event.isEnabled()) {
+            final Object[] values = new Object[PHASES.length + 2];
+            values[0] = this.metrics.getCycleCount();
+            values[1] = executed;
+            for (int i = 0; i < PHASES.length; i++) {
+                values[i + 2] = this.phaseDurations[i];
+            }
+            this.event.commit(values);
+        }
+        if (this.threshold > 0 && duration >= this.threshold) {
+            this.logger.info(
+                    "Installer cycle {} took {} ms: {}",
+                    this.metrics.getCycleCount(),
+                    TimeUnit.NANOSECONDS.toMillis(duration),
+                    this.summary);
+        }
+    }
+}
@@ -24,11 +24,8 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.event.InstallationEvent;
@@ -70,6 +67,12 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
     /** The listener. */
     private transient InstallationListener listener;
 
+    /** Flag indicating that the resources need to be sorted. */
+    private transient boolean unsorted = true;
+
+    /** A single resource which changed since the last sort and might need to be repositioned. */
+    private transient RegisteredResourceImpl changedResource;
+
     public EntityResourceList(final String resourceId, final InstallationListener listener) {
         this.resourceId = resourceId;
         this.listener = listener;
@@ -105,6 +108,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
         final int size = in.readInt();
         for (int i = 0; i < size; i++) {
             final RegisteredResourceImpl rr = (RegisteredResourceImpl) in.readObject();
+            rr.setGroup(this);
             this.resources.add(rr);
         }
         if (version > 1) {
@@ -112,6 +116,56 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
             this.resourceId = (String) in.readObject();
         }
         Util.setField(this, "lock", new Object());
+        this.unsorted = true;
+    }
+
+    /**
+     * Notification from a resource of this group that a value relevant for the
+     * ordering changed. The resource is repositioned with the next access.
+     */
+    void resourceChanged(final RegisteredResourceImpl rsrc) {
+        synchronized (lock) {
+            if (!this.unsorted) {
+                if (this.changedResource == null || this.changedResource == rsrc) {
+                    this.changedResource = rsrc;
+                } else {
+                    this.unsorted = true;
+                    this.changedResource = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure the resources are sorted. This method must be called with the lock held.
+     */
+    private void ensureSorted() {
+        if (this.unsorted) {
+            Collections.sort(this.resources);
+            this.unsorted = false;
+            this.changedResource = null;
+        } else if (this.changedResource != null) {
+            final RegisteredResourceImpl rsrc = this.changedResource;
+            this.changedResource = null;
+            for (int i = 0; i < this.resources.size(); i++) {
+                if (this.resources.get(i) == rsrc) {
+                    this.resources.remove(i);
+                    this.insert(rsrc);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert a resource at its position in the sorted list. This method must be called with the lock held.
+     */
+    private void insert(final RegisteredResourceImpl rsrc) {
+        int index = Collections.binarySearch(this.resources, rsrc);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        this.resources.add(index, rsrc);
     }
 
     /**
@@ -130,7 +184,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
     public TaskResource getActiveResource() {
         synchronized (lock) {
             if (!resources.isEmpty()) {
-                Collections.sort(this.resources);
+                this.ensureSorted();
                 final TaskResource r = resources.get(0);
                 if (r.getState() == ResourceState.INSTALL || r.getState() == ResourceState.UNINSTALL) {
                     return r;
@@ -164,7 +218,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
     public Iterator<TaskResource> getActiveResourceIterator() {
         synchronized (lock) {
             if (this.getActiveResource() != null && this.resources.size() > 1) {
-                final List<TaskResource> taskResourceList = new LinkedList<TaskResource>(this.resources);
+                final List<TaskResource> taskResourceList = new ArrayList<TaskResource>(this.resources);
                 return taskResourceList.iterator();
             }
         }
@@ -177,7 +231,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
     public TaskResource getFirstResource() {
         synchronized (lock) {
             if (!resources.isEmpty()) {
-                Collections.sort(this.resources);
+                this.ensureSorted();
                 return resources.get(0);
             }
         }
@@ -307,6 +361,8 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
                     rsrc.setAttribute(TaskResource.ATTR_INSTALL_INFO, null);
                 }
             }
+            // the event is delivered later, so pass a copy of the current values
+            final ResourceSnapshot source = new ResourceSnapshot((RegisteredResourceImpl) toActivate);
             this.listener.onEvent(new InstallationEvent() {
 
                 @Override
@@ -316,7 +372,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
 
                 @Override
                 public Object getSource() {
-                    return toActivate;
+                    return source;
                 }
             });
             if (state == ResourceState.UNINSTALLED) {
@@ -344,24 +400,22 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
 
     public Collection<RegisteredResourceImpl> listResources() {
         synchronized (lock) {
-            Collections.sort(this.resources);
+            this.ensureSorted();
             return resources;
         }
     }
 
     public Collection<RegisteredResourceImpl> getResources() {
-        final List<RegisteredResourceImpl> list;
         synchronized (lock) {
-            list = new ArrayList<>(this.resources);
+            this.ensureSorted();
+            return new ArrayList<>(this.resources);
         }
-        Collections.sort(list);
-        return list;
     }
 
     public void addOrUpdate(final RegisteredResourceImpl r) {
         synchronized (lock) {
             LOGGER.debug("Adding new resource: {}", r);
-            Collections.sort(this.resources);
+            this.ensureSorted();
             // If an object with same url is already present, replace with the
             // new one which might have different attributes
             boolean first = true;
@@ -403,6 +457,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
                         } else {
                             LOGGER.debug("Cleanup obsolete resource: {}", rr);
                             taskIter.remove();
+                            ((RegisteredResourceImpl) rr).setGroup(null);
                             this.cleanup(rr);
                         }
                     }
@@ -411,10 +466,11 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
                 first = false;
             }
             if (add) {
-                resources.add(r);
+                this.ensureSorted();
+                this.insert(r);
+                r.setGroup(this);
                 // make sure that in case the newly added resource is not the first one the state is saying why it is in
                 // mode install
-                Collections.sort(this.resources);
                 if (r != resources.get(0)) {
                     // don't change actual state but indicate why resource is not considered for subsequent runs (not on
                     // first position)
@@ -433,7 +489,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
     boolean removeInternal(final String url) {
         boolean removed = false;
         synchronized (lock) {
-            Collections.sort(this.resources);
+            this.ensureSorted();
             final Iterator<RegisteredResourceImpl> i = resources.iterator();
             boolean first = true;
             while (i.hasNext()) {
@@ -446,6 +502,7 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
                     } else {
                         LOGGER.debug("Removing unused: {}", r);
                         i.remove();
+                        ((RegisteredResourceImpl) r).setGroup(null);
                         this.cleanup(r);
                     }
                 }
@@ -461,32 +518,24 @@ public class EntityResourceList implements Serializable, TaskResourceGroup {
      */
     public boolean compact() {
         synchronized (lock) {
-            Collections.sort(this.resources);
+            this.ensureSorted();
             boolean startNewCycle = false;
-            final List<TaskResource> toDelete = new ArrayList<>();
             boolean first = true;
-            for (final TaskResource r : resources) {
+            // removing entries keeps the list sorted
+            final Iterator<RegisteredResourceImpl> i = this.resources.iterator();
+            while (i.hasNext()) {
+                final RegisteredResourceImpl r = i.next();
                 if (r.getState() == ResourceState.UNINSTALLED || (!first && r.getState() == ResourceState.UNINSTALL)) {
-                    toDelete.add(r);
-                }
-                first = false;
-            }
-
-            if (!toDelete.isEmpty()) {
-                // Avoid resources.remove(r) as the resource might have
-                // changed since it was added, which causes it to compare()
-                // differently and trip the TreeSet.remove() search.
-                final Set<RegisteredResourceImpl> copy = new HashSet<>(resources);
-                for (final RegisteredResource r : toDelete) {
-                    copy.remove(r);
+                    i.remove();
+                    r.setGroup(null);
                     this.cleanup(r);
                     LOGGER.debug("Removing uninstalled from list: {}", r);
-                }
-                resources.clear();
-                resources.addAll(copy);
-                if (!this.isEmpty()) {
                     startNewCycle = true;
                 }
+                first = false;
+            }
+            if (startNewCycle && this.resources.isEmpty()) {
+                startNewCycle = false;
             }
             return startNewCycle;
         }
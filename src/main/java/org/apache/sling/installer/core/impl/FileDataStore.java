@@ -29,6 +29,7 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Enumeration;
@@ -36,6 +37,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
@@ -65,6 +67,9 @@ public class FileDataStore {
     /** Public instance - to avoid passing a reference to this service to each data object. */
     public static FileDataStore SHARED;
 
+    /** Size of all files in the directory, maintained as files are created and deleted. */
+    private final AtomicLong directorySize = new AtomicLong();
+
     /** Cache for url to digest mapping. */
     private final Map<String, CacheEntry> digestCache = new HashMap<String, CacheEntry>();
 
@@ -123,6 +128,7 @@ public class FileDataStore {
         }
 
         this.directory = locationFile;
+        this.directorySize.set(getSize(locationFile));
         SHARED = this;
         log.debug("FileDataStore setup with directory={}", safePath(directory));
     }
@@ -137,6 +143,56 @@ public class FileDataStore {
         return result;
     }
 
+    /**
+     * Return the size of all files in the installer directory.
+     * The directory is only scanned on startup, afterwards the size is updated
+     * with each file created, written or deleted through this data store.
+     */
+    public long getDirectorySize() {
+        return this.directorySize.get();
+    }
+
+    /**
+     * Record that a file in the installer directory has been written.
+     * @param file The file
+     * @param previousLength The length of the file before it was written, {@code 0} for a new file
+     */
+    public void fileWritten(final File file, final long previousLength) {
+        if (this.directory.equals(file.getParentFile())) {
+            this.directorySize.addAndGet(file.length() - previousLength);
+        }
+    }
+
+    /**
+     * Delete a file in the installer directory.
+     * @param file The file
+     * @return {@code true} if the file has been deleted
+     */
+    public boolean deleteDataFile(final File file) {
+        final long length = file.length();
+        if (file.delete()) {
+            if (this.directory.equals(file.getParentFile())) {
+                this.directorySize.addAndGet(-length);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static long getSize(final File file) {
+        if (file.isDirectory()) {
+            long size = 0;
+            final File[] children = file.listFiles();
+            if (children != null) {
+                for (final File child : children) {
+                    size += getSize(child);
+                }
+            }
+            return size;
+        }
+        return file.length();
+    }
+
     /** Serial number to create unique file names in the data storage. */
     private static long serialNumberCounter = System.currentTimeMillis();
 
@@ -152,17 +208,12 @@ public class FileDataStore {
     public File createNewDataFile(final InputStream stream, final String url, final String digest, final String hint)
             throws IOException {
         // check if we already have this data
-        if (digest != null) {
-            synchronized (this.digestCache) {
-                final CacheEntry storedDigest = this.digestCache.get(url);
-                if (storedDigest != null && storedDigest.digest.equals(digest)) {
-                    log.debug("File {} with digest {} found, returning {}", url, digest, safePath(storedDigest.file));
-                    return storedDigest.file;
-                }
-            }
+        final File existing = this.findDataFile(url, digest);
+        if (existing != null) {
+            return existing;
         }
-        final int pos = url.lastIndexOf('/');
-        final String name = url.substring(pos + 1);
+        // data of external updates has no url
+        final String name = url == null ? "update" : url.substring(url.lastIndexOf('/') + 1);
         final String filename = (hint == null ? "rsrc" : hint) + '-' + name + '-' + getNextSerialNumber() + ".ser";
 
         // replace special characters from the filename that are not allowed by the OS
@@ -171,6 +222,7 @@ public class FileDataStore {
         final File file = this.getDataFile(filename2);
 
         this.copyToLocalStorage(stream, file);
+        this.fileWritten(file, 0);
         log.debug("Stream with digest {} copied to {}", digest, safePath(file));
         if (digest != null) {
             synchronized (this.digestCache) {
@@ -181,6 +233,25 @@ public class FileDataStore {
         return file;
     }
 
+    /**
+     * Find the data file of already copied data.
+     * @param url The url of the resource
+     * @param digest The digest of the data
+     * @return The data file or {@code null} if no data with this digest has been copied for the url.
+     */
+    public File findDataFile(final String url, final String digest) {
+        if (digest != null) {
+            synchronized (this.digestCache) {
+                final CacheEntry storedDigest = this.digestCache.get(url);
+                if (storedDigest != null && storedDigest.digest.equals(digest)) {
+                    log.debug("File {} with digest {} found, returning {}", url, digest, safePath(storedDigest.file));
+                    return storedDigest.file;
+                }
+            }
+        }
+        return null;
+    }
+
     public void updateDigestCache(final String url, final File file, final String digest) {
         log.debug("Updating digest cache for {}, file {}, digest {}", url, safePath(file), digest);
         synchronized (this.digestCache) {
@@ -211,6 +282,7 @@ public class FileDataStore {
 
         log.debug("createNewDataFile: file={}", safePath(file));
         this.copyToLocalStorage(stream, file);
+        this.fileWritten(file, 0);
 
         return file;
     }
@@ -252,6 +324,17 @@ public class FileDataStore {
         }
     }
 
+    /** Digest of the given bytes. */
+    static String computeDigest(final byte[] data) {
+        try {
+            final MessageDigest d = MessageDigest.getInstance("MD5");
+            d.update(data);
+            return digestToString(d);
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
     /** convert digest to readable string (http://www.javalobby.org/java/forums/t84420.html) */
     private static String digestToString(MessageDigest d) {
         final BigInteger bigInt = new BigInteger(1, d.digest());
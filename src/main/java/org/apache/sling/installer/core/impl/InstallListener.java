@@ -18,6 +18,13 @@
  */
 package org.apache.sling.installer.core.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.event.BatchInstallationListener;
 import org.apache.sling.installer.api.event.InstallationEvent;
 import org.apache.sling.installer.api.event.InstallationListener;
 import org.apache.sling.installer.api.tasks.TaskResource;
@@ -27,6 +34,11 @@ import org.slf4j.Logger;
 
 /**
  * Proxy component for notifying all registered {@link InstallationListener}s.
+ *
+ * Events are queued and delivered by a dedicated thread, so slow listeners
+ * do not hold up the installer. The queue is bounded, if it is full the
+ * installer waits. Each listener receives the events in the order they
+ * were sent.
  */
 public class InstallListener implements InstallationListener {
 
@@ -58,15 +70,50 @@ public class InstallListener implements InstallationListener {
         }
     };
 
+    /** Marker stopping the dispatcher thread, never delivered. */
+    private static final InstallationEvent STOP_EVENT = new InstallationEvent() {
+
+        @Override
+        public TYPE getType() {
+            return null;
+        }
+
+        @Override
+        public Object getSource() {
+            return null;
+        }
+    };
+
+    /** Maximum number of queued events. */
+    private static final int QUEUE_SIZE = 1000;
+
+    /** Maximum number of events delivered at once. */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /** A listener call taking longer than this is logged as a warning. */
+    private static final long SLOW_LISTENER_MS = 1000;
+
     /** Service tracker for the listeners. */
     private final ServiceTracker tracker;
 
     /** Flag avoiding sending duplicate events. */
     private volatile boolean started = false;
 
+    /** The time of the last start or suspend. */
+    private volatile long stateChangeTime;
+
     /** Logger. */
     private final Logger logger;
 
+    /** The queued events. */
+    private final BlockingQueue<InstallationEvent> queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+
+    /** The dispatcher thread, started with the first event. */
+    private Thread dispatcher;
+
+    /** Flag indicating that no events are accepted anymore. */
+    private volatile boolean disposed = false;
+
     /**
      * Start service tracker.
      */
@@ -77,9 +124,25 @@ public class InstallListener implements InstallationListener {
     }
 
     /**
-     * Stop service tracker.
+     * Deliver the queued events, stop the dispatcher and the service tracker.
      */
     public void dispose() {
+        this.disposed = true;
+        final Thread t;
+        synchronized (this.queue) {
+            t = this.dispatcher;
+            this.dispatcher = null;
+        }
+        if (t != null) {
+            try {
+                // the dispatcher might have stopped with a full queue
+                if (this.queue.offer(STOP_EVENT, SLOW_LISTENER_MS * 5, TimeUnit.MILLISECONDS)) {
+                    t.join(SLOW_LISTENER_MS * 5);
+                }
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
         this.tracker.close();
     }
 
@@ -98,16 +161,135 @@ public class InstallListener implements InstallationListener {
                 logger.debug("onEvent(event.getSource(): {})", src);
             }
         }
-        final Object[] listeners = this.tracker.getServices();
+        try {
+            // the dispatcher is checked on each retry, as it might have stopped
+            while (this.ensureDispatcher() && !this.queue.offer(event, 100, TimeUnit.MILLISECONDS)) {
+                // the queue is full, wait for the dispatcher
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start the dispatcher thread if it is not running.
+     * @return {@code false} if no events are accepted anymore
+     */
+    private boolean ensureDispatcher() {
+        synchronized (this.queue) {
+            if (this.disposed) {
+                return false;
+            }
+            if (this.dispatcher == null) {
+                this.dispatcher = new Thread("Apache Sling Installer Event Dispatcher") {
+
+                    @Override
+                    public void run() {
+                        dispatch();
+                    }
+                };
+                this.dispatcher.setDaemon(true);
+                this.dispatcher.start();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Dispatch queued events until the stop marker is found.
+     * If the thread stops for another reason, the next event starts a new one.
+     */
+    private void dispatch() {
+        final List<InstallationEvent> events = new ArrayList<>();
+        boolean stop = false;
+        try {
+            while (!stop) {
+                events.clear();
+                try {
+                    events.add(this.queue.take());
+                } catch (final InterruptedException ie) {
+                    return;
+                }
+                this.queue.drainTo(events, MAX_BATCH_SIZE - 1);
+                final int stopIndex = events.indexOf(STOP_EVENT);
+                if (stopIndex != -1) {
+                    events.subList(stopIndex, events.size()).clear();
+                    stop = true;
+                }
+                if (!events.isEmpty()) {
+                    this.deliver(this.tracker.getServices(), events);
+                }
+            }
+        } finally {
+            if (!stop) {
+                logger.warn(
+                        "Installation event dispatcher stopped unexpectedly, {} events are queued.", this.queue.size());
+                synchronized (this.queue) {
+                    if (this.dispatcher == Thread.currentThread()) {
+                        this.dispatcher = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver events to the listeners.
+     */
+    void deliver(final Object[] listeners, final List<InstallationEvent> events) {
         if (listeners != null) {
             for (final Object l : listeners) {
-                if (l instanceof InstallationListener) {
-                    ((InstallationListener) l).onEvent(event);
+                if (l instanceof BatchInstallationListener) {
+                    final BatchInstallationListener listener = (BatchInstallationListener) l;
+                    int start = 0;
+                    for (int i = 0; i < events.size(); i++) {
+                        if (events.get(i).getType() != InstallationEvent.TYPE.PROCESSED) {
+                            this.deliver(listener, events.subList(start, i));
+                            this.deliver(listener, events.get(i));
+                            start = i + 1;
+                        }
+                    }
+                    this.deliver(listener, events.subList(start, events.size()));
+                } else if (l instanceof InstallationListener) {
+                    for (final InstallationEvent event : events) {
+                        this.deliver((InstallationListener) l, event);
+                    }
                 }
             }
         }
     }
 
+    private void deliver(final BatchInstallationListener listener, final List<InstallationEvent> events) {
+        if (!events.isEmpty()) {
+            final long start = System.currentTimeMillis();
+            try {
+                listener.onEvents(new ArrayList<>(events));
+            } catch (final Throwable t) {
+                logger.warn("Installation listener " + listener + " failed to process events.", t);
+            }
+            this.checkTime(listener, events.size(), start);
+        }
+    }
+
+    private void deliver(final InstallationListener listener, final InstallationEvent event) {
+        final long start = System.currentTimeMillis();
+        try {
+            listener.onEvent(event);
+        } catch (final Throwable t) {
+            logger.warn("Installation listener " + listener + " failed to process event.", t);
+        }
+        this.checkTime(listener, 1, start);
+    }
+
+    private void checkTime(final InstallationListener listener, final int count, final long start) {
+        final long time = System.currentTimeMillis() - start;
+        if (time >= SLOW_LISTENER_MS) {
+            logger.warn("Installation listener {} took {} ms to process {} event(s).", listener, time, count);
+        } else {
+            logger.debug("Installation listener {} took {} ms to process {} event(s).", listener, time, count);
+        }
+    }
+
     /**
      * Send started event.
      */
@@ -115,6 +297,7 @@ public class InstallListener implements InstallationListener {
         if (!this.started) {
             this.logger.debug("Starting new installer cycle");
             this.started = true;
+            this.stateChangeTime = System.currentTimeMillis();
             this.onEvent(START_EVENT);
         }
     }
@@ -125,7 +308,23 @@ public class InstallListener implements InstallationListener {
     public synchronized void suspend() {
         if (this.started) {
             this.started = false;
+            this.stateChangeTime = System.currentTimeMillis();
             this.onEvent(SUSPENDED_EVENT);
         }
     }
+
+    /**
+     * Is the installer in a cycle?
+     * Unlike the listeners this does not lag behind the event queue.
+     */
+    public boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * The time of the last start or suspend.
+     */
+    public long getStateChangeTime() {
+        return this.stateChangeTime;
+    }
 }
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+
+/**
+ * Builds immutable {@link InstallationState} snapshots.
+ *
+ * The installer thread publishes a new snapshot after each change, readers
+ * just get the last published one without locking. The values of the
+ * resources are copied into the snapshot, resource groups whose resources
+ * did not change since the last snapshot are reused.
+ */
+class InstallationStateSnapshot {
+
+    private static final Comparator<ResourceGroup> COMPARATOR = new Comparator<ResourceGroup>() {
+
+        @Override
+        public int compare(ResourceGroup o1, ResourceGroup o2) {
+            RegisteredResource r1 = null;
+            RegisteredResource r2 = null;
+            if (o1.getResources().size() > 0) {
+                r1 = o1.getResources().iterator().next();
+            }
+            if (o2.getResources().size() > 0) {
+                r2 = o2.getResources().iterator().next();
+            }
+            int result;
+            if (r1 == null && r2 == null) {
+                result = 0;
+            } else if (r1 == null) {
+                result = -1;
+            } else if (r2 == null) {
+                result = 1;
+            } else {
+                result = r1.getType().compareTo(r2.getType());
+                if (result == 0) {
+                    result = r1.getEntityId().compareTo(r2.getEntityId());
+                }
+            }
+            return result;
+        }
+    };
+
+    /** The groups of the last snapshot by entity id. Only used by the publishing thread. */
+    private Map<String, Group> groups = new HashMap<>();
+
+    /** Resource counts by state, updated with the changed groups. Only used by the publishing thread. */
+    private final Map<ResourceState, Integer> countByState = new EnumMap<>(ResourceState.class);
+
+    /** Resource counts by type, updated with the changed groups. Only used by the publishing thread. */
+    private final Map<String, Integer> countByType = new HashMap<>();
+
+    /** The last published state. */
+    private volatile State state;
+
+    /**
+     * Get the last published state.
+     * @return The state or {@code null} if no state has been published yet.
+     */
+    public InstallationState get() {
+        return this.state;
+    }
+
+    /**
+     * Get the resource counts by state of the last published state.
+     * @return An unmodifiable map
+     */
+    public Map<ResourceState, Integer> getResourceCountByState() {
+        final State current = this.state;
+        return current == null ? Collections.<ResourceState, Integer>emptyMap() : current.countByState;
+    }
+
+    /**
+     * Get the resource counts by type of the last published state.
+     * @return An unmodifiable map
+     */
+    public Map<String, Integer> getResourceCountByType() {
+        final State current = this.state;
+        return current == null ? Collections.<String, Integer>emptyMap() : current.countByType;
+    }
+
+    /**
+     * Create and publish a new snapshot. The caller must hold the resources lock.
+     * @param persistentList The resource list
+     * @return The new state
+     */
+    public InstallationState publish(final PersistentResourceList persistentList) {
+        final Map<String, Group> newGroups = new HashMap<>();
+        boolean changed = false;
+        for (final String entityId : persistentList.getEntityIds()) {
+            if (!persistentList.isSpecialEntityId(entityId)) {
+                final EntityResourceList list = persistentList.getEntityResourceList(entityId);
+                Group group = this.groups.remove(entityId);
+                if (group == null || !group.isUnchanged(list)) {
+                    this.count(group, -1);
+                    group = new Group(list);
+                    this.count(group, 1);
+                    changed = true;
+                }
+                newGroups.put(entityId, group);
+            }
+        }
+        // the remaining groups have been removed
+        for (final Group group : this.groups.values()) {
+            this.count(group, -1);
+            changed = true;
+        }
+        this.groups = newGroups;
+
+        final List<RegisteredResource> untransformedResources = new ArrayList<>();
+        for (final RegisteredResource rr : persistentList.getUntransformedResources()) {
+            untransformedResources.add(
+                    rr instanceof RegisteredResourceImpl ? new ResourceSnapshot((RegisteredResourceImpl) rr) : rr);
+        }
+
+        final State previous = this.state;
+        final State newState;
+        if (!changed && previous != null) {
+            // all groups are reused, so are their order and the counts
+            newState = new State(
+                    previous.activeResources,
+                    previous.installedResources,
+                    Collections.unmodifiableList(untransformedResources),
+                    previous.countByState,
+                    previous.countByType);
+        } else {
+            final List<ResourceGroup> activeResources = new ArrayList<>();
+            final List<ResourceGroup> installedResources = new ArrayList<>();
+            for (final Group group : newGroups.values()) {
+                if (group.active) {
+                    activeResources.add(group);
+                } else {
+                    installedResources.add(group);
+                }
+            }
+            Collections.sort(activeResources, COMPARATOR);
+            Collections.sort(installedResources, COMPARATOR);
+            newState = new State(
+                    Collections.unmodifiableList(activeResources),
+                    Collections.unmodifiableList(installedResources),
+                    Collections.unmodifiableList(untransformedResources),
+                    Collections.unmodifiableMap(new EnumMap<>(this.countByState)),
+                    Collections.unmodifiableMap(new HashMap<>(this.countByType)));
+        }
+        this.state = newState;
+        return newState;
+    }
+
+    /**
+     * Add or subtract the resources of a group to the resource counts.
+     */
+    private void count(final Group group, final int delta) {
+        if (group != null) {
+            for (final Resource rsrc : group.resources) {
+                add(this.countByState, rsrc.getState(), delta);
+                add(this.countByType, rsrc.getType(), delta);
+            }
+        }
+    }
+
+    private static <K> void add(final Map<K, Integer> counts, final K key, final int delta) {
+        final Integer current = counts.get(key);
+        final int value = (current == null ? 0 : current) + delta;
+        if (value == 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, value);
+        }
+    }
+
+    private static final class State implements InstallationState {
+
+        private final List<ResourceGroup> activeResources;
+        private final List<ResourceGroup> installedResources;
+        private final List<RegisteredResource> untransformedResources;
+        private final Map<ResourceState, Integer> countByState;
+        private final Map<String, Integer> countByType;
+
+        public State(
+                final List<ResourceGroup> activeResources,
+                final List<ResourceGroup> installedResources,
+                final List<RegisteredResource> untransformedResources,
+                final Map<ResourceState, Integer> countByState,
+                final Map<String, Integer> countByType) {
+            this.activeResources = activeResources;
+            this.installedResources = installedResources;
+            this.untransformedResources = untransformedResources;
+            this.countByState = countByState;
+            this.countByType = countByType;
+        }
+
+        @Override
+        public List<ResourceGroup> getActiveResources() {
+            return activeResources;
+        }
+
+        @Override
+        public List<ResourceGroup> getInstalledResources() {
+            return installedResources;
+        }
+
+        @Override
+        public List<RegisteredResource> getUntransformedResources() {
+            return untransformedResources;
+        }
+
+        @Override
+        public String toString() {
+            return "InstallationState[active resources: " + this.activeResources + ", installed resources: "
+                    + this.installedResources + ", untransformed resources: "
+                    + this.untransformedResources + "]";
+        }
+    }
+
+    private static final class Group implements ResourceGroup {
+
+        private final String alias;
+
+        private final RegisteredResourceImpl[] taskResources;
+
+        private final int[] modCounts;
+
+        private final List<Resource> resources;
+
+        private final boolean active;
+
+        public Group(final EntityResourceList list) {
+            this.alias = list.getAlias();
+            final Collection<RegisteredResourceImpl> current = list.getResources();
+            this.taskResources = current.toArray(new RegisteredResourceImpl[current.size()]);
+            this.modCounts = new int[this.taskResources.length];
+            final List<Resource> result = new ArrayList<>(this.taskResources.length);
+            for (int i = 0; i < this.taskResources.length; i++) {
+                final RegisteredResourceImpl tr = this.taskResources[i];
+                this.modCounts[i] = tr.getModificationCount();
+                result.add(new ResourceSnapshot(tr));
+            }
+            this.resources = Collections.unmodifiableList(result);
+            final ResourceState firstState =
+                    result.isEmpty() ? null : result.get(0).getState();
+            this.active = firstState == ResourceState.INSTALL || firstState == ResourceState.UNINSTALL;
+        }
+
+        /**
+         * Check whether the group still has the same alias and the same, unmodified resources.
+         */
+        public boolean isUnchanged(final EntityResourceList list) {
+            final String currentAlias = list.getAlias();
+            if (currentAlias == null ? this.alias != null : !currentAlias.equals(this.alias)) {
+                return false;
+            }
+            final Collection<RegisteredResourceImpl> current = list.getResources();
+            if (current.size() != this.taskResources.length) {
+                return false;
+            }
+            int i = 0;
+            for (final RegisteredResourceImpl tr : current) {
+                if (tr != this.taskResources[i] || tr.getModificationCount() != this.modCounts[i]) {
+                    return false;
+                }
+                i++;
+            }
+            return true;
+        }
+
+        @Override
+        public List<Resource> getResources() {
+            return resources;
+        }
+
+        @Override
+        public String getAlias() {
+            return alias;
+        }
+
+        @Override
+        public String toString() {
+            return "group[" + resources + "]";
+        }
+    }
+}
@@ -18,57 +18,157 @@
  */
 package org.apache.sling.installer.core.impl;
 
-import org.apache.sling.installer.api.event.InstallationEvent;
-import org.apache.sling.installer.api.event.InstallationListener;
-import org.apache.sling.installer.api.info.InfoProvider;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.apache.sling.installer.api.info.InstallerMetrics;
+import org.apache.sling.installer.api.info.PhaseStatistics;
 import org.apache.sling.installer.api.jmx.InstallerMBean;
 
-public class InstallerMBeanImpl implements InstallationListener, InstallerMBean {
-    private final InfoProvider infoProvider;
-    private volatile boolean active;
-    private volatile long lastEventTime;
+public class InstallerMBeanImpl implements InstallerMBean {
 
-    public InstallerMBeanImpl(InfoProvider infoProvider) {
-        this.infoProvider = infoProvider;
-    }
+    private static final String[] PHASE_ITEMS = {
+        "phase",
+        "count",
+        "totalTime",
+        "maxTime",
+        "lastTime",
+        "itemCount",
+        "lastItemCount",
+        "bucketBounds",
+        "bucketCounts"
+    };
 
-    // ~---------------------------------------< InstallationListener >
+    private static final TabularType PHASE_STATISTICS_TYPE;
 
-    @Override
-    public void onEvent(InstallationEvent event) {
-        switch (event.getType()) {
-            case STARTED:
-                active = true;
-                break;
-            case SUSPENDED:
-                active = false;
-                break;
-            default:
-                // nothing to do
-                break;
+    static {
+        try {
+            final OpenType<?> longArray = ArrayType.getPrimitiveArrayType(long[].class);
+            final CompositeType rowType = new CompositeType(
+                    "PhaseStatistics",
+                    "Timing statistics of an installer cycle phase",
+                    PHASE_ITEMS,
+                    new String[] {
+                        "Phase",
+                        "Number of runs",
+                        "Total duration in microseconds",
+                        "Maximum duration in microseconds",
+                        "Last duration in microseconds",
+                        "Total number of processed items",
+                        "Number of items processed in the last run",
+                        "Inclusive upper bounds of the histogram buckets in milliseconds",
+                        "Number of runs per histogram bucket"
+                    },
+                    new OpenType<?>[] {
+                        SimpleType.STRING,
+                        SimpleType.LONG,
+                        SimpleType.LONG,
+                        SimpleType.LONG,
+                        SimpleType.LONG,
+                        SimpleType.LONG,
+                        SimpleType.LONG,
+                        longArray,
+                        longArray
+                    });
+            PHASE_STATISTICS_TYPE = new TabularType(
+                    "PhaseStatisticsTable", "Installer cycle phase statistics", rowType, new String[] {"phase"});
+        } catch (final OpenDataException e) {
+            throw new IllegalStateException(e);
         }
-        lastEventTime = System.currentTimeMillis();
+    }
+
+    private final InstallerMetrics metrics;
+    private final InstallListener listener;
+
+    public InstallerMBeanImpl(InstallerMetrics metrics, InstallListener listener) {
+        this.metrics = metrics;
+        this.listener = listener;
     }
 
     // ~----------------------------------------< InstallerMBean >
 
     @Override
     public int getActiveResourceCount() {
-        return infoProvider.getInstallationState().getActiveResources().size();
+        return metrics.getActiveResourceGroupCount();
     }
 
     @Override
     public int getInstalledResourceCount() {
-        return infoProvider.getInstallationState().getInstalledResources().size();
+        return metrics.getInstalledResourceGroupCount();
     }
 
     @Override
     public boolean isActive() {
-        return active;
+        return listener.isStarted();
     }
 
     @Override
     public long getSuspendedSince() {
-        return active ? -1 : lastEventTime;
+        return listener.isStarted() ? -1 : listener.getStateChangeTime();
+    }
+
+    @Override
+    public int getUntransformedResourceCount() {
+        return metrics.getUntransformedResourceCount();
+    }
+
+    @Override
+    public int getPendingChangeCount() {
+        return metrics.getNewResourceCount() + metrics.getUpdateInfoCount() + metrics.getRemovedResourceCount();
+    }
+
+    @Override
+    public long getCycleCount() {
+        return metrics.getCycleCount();
+    }
+
+    @Override
+    public long getExecutedTaskCount() {
+        return metrics.getExecutedTaskCount();
+    }
+
+    @Override
+    public long getFailedTaskCount() {
+        return metrics.getFailedTaskCount();
+    }
+
+    @Override
+    public long getPersistedBytes() {
+        return metrics.getPersistedBytes();
+    }
+
+    @Override
+    public long getDataDirectorySize() {
+        return metrics.getDataDirectorySize();
+    }
+
+    @Override
+    public TabularData getPhaseStatistics() {
+        final TabularDataSupport result = new TabularDataSupport(PHASE_STATISTICS_TYPE);
+        for (final PhaseStatistics stats : metrics.getPhaseStatistics().values()) {
+            try {
+                result.put(new CompositeDataSupport(PHASE_STATISTICS_TYPE.getRowType(), PHASE_ITEMS, new Object[] {
+                    stats.getPhase(),
+                    stats.getCount(),
+                    stats.getTotalTime(),
+                    stats.getMaxTime(),
+                    stats.getLastTime(),
+                    stats.getItemCount(),
+                    stats.getLastItemCount(),
+                    stats.getBucketBounds(),
+                    stats.getBucketCounts()
+                }));
+            } catch (final OpenDataException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return result;
     }
 }
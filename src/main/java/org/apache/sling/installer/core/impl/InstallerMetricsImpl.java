@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.InstallerMetrics;
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.apache.sling.installer.api.tasks.InstallTask;
+import org.apache.sling.installer.api.tasks.ResourceState;
+
+/**
+ * Implementation of the installer metrics.
+ * The counters are updated by the installer, all getters just return the current values.
+ */
+public class InstallerMetricsImpl implements InstallerMetrics {
+
+    /** The resource counts, replaced as a whole with each published state. */
+    private static final class ResourceCounts {
+
+        public final int activeGroups;
+
+        public final int installedGroups;
+
+        public final int untransformed;
+
+        public final Map<ResourceState, Integer> byState;
+
+        public final Map<String, Integer> byType;
+
+        public ResourceCounts(
+                final InstallationState state,
+                final Map<ResourceState, Integer> byState,
+                final Map<String, Integer> byType) {
+            this.activeGroups = state.getActiveResources().size();
+            this.installedGroups = state.getInstalledResources().size();
+            this.untransformed = state.getUntransformedResources().size();
+            this.byState = byState;
+            this.byType = byType;
+        }
+    }
+
+    private volatile ResourceCounts resourceCounts;
+
+    private volatile int newResourceCount;
+
+    private volatile int updateInfoCount;
+
+    private volatile int removedResourceCount;
+
+    private final AtomicLong cycleCount = new AtomicLong();
+
+    private final AtomicLong executedTaskCount = new AtomicLong();
+
+    private final AtomicLong failedTaskCount = new AtomicLong();
+
+    private final ConcurrentMap<String, AtomicLong> executedTasksByClass = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> failedTasksByClass = new ConcurrentHashMap<>();
+
+    /** The phase statistics in the order the phases run within a cycle. */
+    private final Map<String, PhaseStatisticsImpl> phaseStatistics = new LinkedHashMap<>();
+
+    private final PersistentResourceList persistentList;
+
+    public InstallerMetricsImpl(final PersistentResourceList persistentList) {
+        this.persistentList = persistentList;
+        for (final String phase : new String[] {
+            PhaseStatistics.RESOURCE_UPDATERS,
+            PhaseStatistics.UPDATE_INFOS,
+            PhaseStatistics.MERGE,
+            PhaseStatistics.TRANSFORM,
+            PhaseStatistics.COMPUTE_TASKS,
+            PhaseStatistics.EXECUTE_TASKS,
+            PhaseStatistics.PERSIST,
+            PhaseStatistics.CYCLE
+        }) {
+            this.phaseStatistics.put(phase, new PhaseStatisticsImpl(phase));
+        }
+    }
+
+    /**
+     * Update the resource counts from a newly published state.
+     * @param state The published state
+     * @param byState The unmodifiable resource counts by state
+     * @param byType The unmodifiable resource counts by type
+     */
+    public void setInstallationState(
+            final InstallationState state,
+            final Map<ResourceState, Integer> byState,
+            final Map<String, Integer> byType) {
+        this.resourceCounts = new ResourceCounts(state, byState, byType);
+    }
+
+    /**
+     * Update the queue depths of the not yet processed changes.
+     */
+    public void setPendingChanges(final int newResources, final int updateInfos, final int removedResources) {
+        this.newResourceCount = newResources;
+        this.updateInfoCount = updateInfos;
+        this.removedResourceCount = removedResources;
+    }
+
+    /**
+     * Count an installer cycle.
+     */
+    public void cycleStarted() {
+        this.cycleCount.incrementAndGet();
+    }
+
+    /**
+     * Record a run of a cycle phase.
+     * @param phase One of the phases defined in {@link PhaseStatistics}
+     * @param nanos The duration in nanoseconds
+     * @param items The number of processed items
+     */
+    public void phaseCompleted(final String phase, final long nanos, final long items) {
+        final PhaseStatisticsImpl statistics = this.phaseStatistics.get(phase);
+        if (statistics != null) {
+            statistics.record(nanos, items);
+        }
+    }
+
+    /**
+     * Count an executed task.
+     */
+    public void taskExecuted(final InstallTask task, final boolean failed) {
+        final String className = task.getClass().getName();
+        this.executedTaskCount.incrementAndGet();
+        increment(this.executedTasksByClass, className);
+        if (failed) {
+            this.failedTaskCount.incrementAndGet();
+            increment(this.failedTasksByClass, className);
+        }
+    }
+
+    private static void increment(final ConcurrentMap<String, AtomicLong> counters, final String key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private static Map<String, Long> toMap(final ConcurrentMap<String, AtomicLong> counters) {
+        final Map<String, Long> result = new HashMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public int getActiveResourceGroupCount() {
+        final ResourceCounts counts = this.resourceCounts;
+        return counts == null ? 0 : counts.activeGroups;
+    }
+
+    @Override
+    public int getInstalledResourceGroupCount() {
+        final ResourceCounts counts = this.resourceCounts;
+        return counts == null ? 0 : counts.installedGroups;
+    }
+
+    @Override
+    public Map<ResourceState, Integer> getResourceCountByState() {
+        final ResourceCounts counts = this.resourceCounts;
+        return counts == null ? Collections.<ResourceState, Integer>emptyMap() : counts.byState;
+    }
+
+    @Override
+    public Map<String, Integer> getResourceCountByType() {
+        final ResourceCounts counts = this.resourceCounts;
+        return counts == null ? Collections.<String, Integer>emptyMap() : counts.byType;
+    }
+
+    @Override
+    public int getUntransformedResourceCount() {
+        final ResourceCounts counts = this.resourceCounts;
+        return counts == null ? 0 : counts.untransformed;
+    }
+
+    @Override
+    public int getNewResourceCount() {
+        return this.newResourceCount;
+    }
+
+    @Override
+    public int getUpdateInfoCount() {
+        return this.updateInfoCount;
+    }
+
+    @Override
+    public int getRemovedResourceCount() {
+        return this.removedResourceCount;
+    }
+
+    @Override
+    public long getCycleCount() {
+        return this.cycleCount.get();
+    }
+
+    @Override
+    public long getExecutedTaskCount() {
+        return this.executedTaskCount.get();
+    }
+
+    @Override
+    public long getFailedTaskCount() {
+        return this.failedTaskCount.get();
+    }
+
+    @Override
+    public Map<String, Long> getExecutedTaskCountByClass() {
+        return toMap(this.executedTasksByClass);
+    }
+
+    @Override
+    public Map<String, Long> getFailedTaskCountByClass() {
+        return toMap(this.failedTasksByClass);
+    }
+
+    @Override
+    public long getPersistedBytes() {
+        return this.persistentList.getPersistedBytes();
+    }
+
+    @Override
+    public long getDataDirectorySize() {
+        return FileDataStore.SHARED == null ? 0 : FileDataStore.SHARED.getDirectorySize();
+    }
+
+    @Override
+    public Map<String, PhaseStatistics> getPhaseStatistics() {
+        final Map<String, PhaseStatistics> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, PhaseStatisticsImpl> entry : this.phaseStatistics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().copy());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -27,7 +27,9 @@ import java.security.ProtectionDomain;
 import org.apache.sling.installer.api.info.InfoProvider;
 import org.apache.sling.installer.api.info.ResourceGroup;
 import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.core.impl.tasks.AbstractBundleTask;
+import org.apache.sling.installer.core.impl.tasks.BundleLocationIndex;
 import org.osgi.service.url.AbstractURLStreamHandlerService;
 import org.osgi.service.url.URLStreamHandlerService;
 
@@ -43,15 +45,24 @@ public class InstallerResourceUrlHandler extends AbstractURLStreamHandlerService
 
     private final InfoProvider installerInfo;
 
-    public InstallerResourceUrlHandler(InfoProvider installerInfo) {
+    private final BundleLocationIndex locationIndex;
+
+    public InstallerResourceUrlHandler(InfoProvider installerInfo, BundleLocationIndex locationIndex) {
         this.installerInfo = installerInfo;
+        this.locationIndex = locationIndex;
     }
 
     private InputStream getInputStreamFromInstallerResourceUrl(URL url) throws IOException {
+        final String location = url.toString();
+        final TaskResource indexed = locationIndex == null ? null : locationIndex.getInstalledResource(location);
+        if (indexed != null) {
+            return indexed.getInputStream();
+        }
+        // fall back to the published installation state
         for (ResourceGroup resourceGroup : installerInfo.getInstallationState().getInstalledResources()) {
             for (org.apache.sling.installer.api.info.Resource resource : resourceGroup.getResources()) {
                 String bundleLocation = AbstractBundleTask.getBundleLocation(resource);
-                if (url.toString().equals(bundleLocation) && resource.getState().equals(ResourceState.INSTALLED)) {
+                if (location.equals(bundleLocation) && resource.getState().equals(ResourceState.INSTALLED)) {
                     return resource.getInputStream();
                 }
             }
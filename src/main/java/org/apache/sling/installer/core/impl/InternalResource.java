@@ -19,22 +19,29 @@
 package org.apache.sling.installer.core.impl;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.URI;
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.felix.cm.file.ConfigurationHandler;
 import org.apache.felix.cm.json.io.Configurations;
+import org.apache.sling.installer.api.ContentSupplier;
 import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.core.impl.util.DefaultResourceUriProbe;
+import org.apache.sling.installer.core.impl.util.ResourceUriProbe;
 
 /**
  * Internal resource is a private data object which wraps
@@ -48,6 +55,70 @@ import org.apache.sling.installer.api.InstallableResource;
  */
 public class InternalResource extends InstallableResource {
 
+    /** The probe for checking resource uris. */
+    private static volatile ResourceUriProbe resourceUriProbe = new DefaultResourceUriProbe();
+
+    /** Maximum number of parsed dictionaries kept in the cache. */
+    private static final int DICTIONARY_CACHE_SIZE = 10000;
+
+    /**
+     * Cache of parsed dictionaries, keyed by url and a digest of the bytes read.
+     * The format is given by the extension of the url. Least recently used
+     * entries are removed first.
+     */
+    private static final Map<String, Dictionary<String, Object>> DICTIONARY_CACHE =
+            new LinkedHashMap<String, Dictionary<String, Object>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Dictionary<String, Object>> eldest) {
+                    return this.size() > DICTIONARY_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * A dictionary which can't be modified, used for the cached dictionaries.
+     * Registered resources always work on a private copy.
+     */
+    private static final class ReadOnlyDictionary extends Hashtable<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private boolean readOnly;
+
+        public ReadOnlyDictionary(final Dictionary<String, Object> dict) {
+            final Enumeration<String> e = dict.keys();
+            while (e.hasMoreElements()) {
+                final String key = e.nextElement();
+                super.put(key, dict.get(key));
+            }
+            this.readOnly = true;
+        }
+
+        @Override
+        public synchronized Object put(final String key, final Object value) {
+            if (this.readOnly) {
+                throw new UnsupportedOperationException();
+            }
+            return super.put(key, value);
+        }
+
+        @Override
+        public synchronized Object remove(final Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void putAll(final Map<? extends String, ? extends Object> t) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void clear() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Create an internal resource.
      * @throws IOException if something is wrong
@@ -56,6 +127,8 @@ public class InternalResource extends InstallableResource {
         // installable resource has an id, a priority and either
         // an input stream or a dictionary
         InputStream is = resource.getInputStream();
+        final ContentSupplier content = resource.getContentSupplier();
+        boolean hasContent = is != null || content != null;
         Dictionary<String, Object> dict = resource.getDictionary();
 
         // Handle deprecated types and map them to new types
@@ -74,43 +147,26 @@ public class InternalResource extends InstallableResource {
                 ? (String) dict.get(InstallableResource.RESOURCE_URI_HINT)
                 : null;
         // check if resourceUri is accessible
-        boolean useResourceUri = resourceUri != null;
-        if (resourceUri != null) {
-            InputStream resourceUriIS = null;
-            try {
-                final URI uri = new URI(resourceUri);
-                resourceUriIS = uri.toURL().openStream();
-                // everything fine
-            } catch (final Exception use) {
-                useResourceUri = false;
-            } finally {
-                if (resourceUriIS != null) {
-                    try {
-                        resourceUriIS.close();
-                    } catch (final IOException ignore) {
-                        // ignore
-                    }
-                }
-            }
-        }
+        boolean useResourceUri = resourceUri != null && resourceUriProbe.isAccessible(resourceUri);
 
-        if (is != null
+        if (hasContent
                 && (InstallableResource.TYPE_PROPERTIES.equals(type)
                         || ((type == null || InstallableResource.TYPE_FILE.equals(type))
                                 && isConfigExtension(resource.getId())))) {
             try {
-                dict = readDictionary(is, scheme, resource.getId());
+                dict = readCachedDictionary(is != null ? is : content.open(), scheme, resource.getId());
             } catch (final IOException ioe) {
                 throw (IOException) new IOException("Unable to read dictionary from input stream: " + resource.getId())
                         .initCause(ioe);
             }
             is = null;
+            hasContent = false;
             useResourceUri = false;
         }
 
         File dataFile = null;
         final String digest;
-        if (is == null) {
+        if (!hasContent) {
             // if input stream is null, properties is expected!
             type = (type != null ? type : InstallableResource.TYPE_PROPERTIES);
             // we always compute a digest
@@ -122,7 +178,21 @@ public class InternalResource extends InstallableResource {
             } else {
                 final String url = scheme + ':' + resource.getId();
                 // if input stream is not null, file is expected!
-                dataFile = FileDataStore.SHARED.createNewDataFile(is, url, resource.getDigest(), resource.getType());
+                // content from a supplier is only opened if the data has not been copied before
+                dataFile = FileDataStore.SHARED.findDataFile(url, resource.getDigest());
+                if (dataFile == null) {
+                    if (is == null) {
+                        is = content.open();
+                    }
+                    try {
+                        dataFile = FileDataStore.SHARED.createNewDataFile(
+                                is, url, resource.getDigest(), resource.getType());
+                    } finally {
+                        if (content != null) {
+                            is.close();
+                        }
+                    }
+                }
                 if (resource.getDigest() != null && resource.getDigest().length() > 0) {
                     digest = resource.getDigest();
                 } else {
@@ -135,6 +205,7 @@ public class InternalResource extends InstallableResource {
                 scheme,
                 resource.getId(),
                 is,
+                hasContent ? content : null,
                 dict,
                 type,
                 digest,
@@ -162,7 +233,21 @@ public class InternalResource extends InstallableResource {
             final Integer priority,
             final File dataFile,
             final String resourceUri) {
-        super(id, is, dict, digest, type, priority);
+        this(scheme, id, is, null, dict, type, digest, priority, dataFile, resourceUri);
+    }
+
+    private InternalResource(
+            final String scheme,
+            final String id,
+            final InputStream is,
+            final ContentSupplier content,
+            final Dictionary<String, Object> dict,
+            final String type,
+            final String digest,
+            final Integer priority,
+            final File dataFile,
+            final String resourceUri) {
+        super(id, is, content, dict, digest, type, priority);
         this.url = scheme + ':' + id;
         this.dataFile = dataFile;
         this.resourceUri = resourceUri;
@@ -186,11 +271,24 @@ public class InternalResource extends InstallableResource {
         final Enumeration<String> e = d.keys();
         while (e.hasMoreElements()) {
             final String key = e.nextElement();
-            result.put(key, d.get(key));
+            result.put(key, copyValue(d.get(key)));
         }
         return result;
     }
 
+    /**
+     * Copy array values, as the dictionary might be shared through the cache.
+     */
+    private static Object copyValue(final Object value) {
+        if (value != null && value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final Object result = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, result, 0, length);
+            return result;
+        }
+        return value;
+    }
+
     /**
      * Copy the given file and return it.
      */
@@ -212,6 +310,57 @@ public class InternalResource extends InstallableResource {
         return this.resourceUri;
     }
 
+    /**
+     * Read dictionary from an input stream or get it from the cache.
+     * The content is always read, only parsing is skipped if the same
+     * bytes have been parsed before for this url. The digest reported by
+     * the provider is not used, as it does not need to depend on the content.
+     * @return The dictionary, in case of a cached dictionary this is a shared, read only instance.
+     */
+    private static Dictionary<String, Object> readCachedDictionary(
+            final InputStream is, final String scheme, final String id) throws IOException {
+        final byte[] data;
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int count;
+            while ((count = is.read(buffer)) != -1) {
+                bos.write(buffer, 0, count);
+            }
+            data = bos.toByteArray();
+        } finally {
+            is.close();
+        }
+        final String key = scheme + ':' + id + '\n' + FileDataStore.computeDigest(data);
+        Dictionary<String, Object> dict;
+        synchronized (DICTIONARY_CACHE) {
+            dict = DICTIONARY_CACHE.get(key);
+        }
+        if (dict == null) {
+            dict = new ReadOnlyDictionary(readDictionary(new ByteArrayInputStream(data), scheme, id));
+            synchronized (DICTIONARY_CACHE) {
+                DICTIONARY_CACHE.put(key, dict);
+            }
+        }
+        return dict;
+    }
+
+    /**
+     * Set the probe used to check whether a resource uri is accessible.
+     */
+    static void setResourceUriProbe(final ResourceUriProbe probe) {
+        resourceUriProbe = probe;
+    }
+
+    /**
+     * Clear the cache of parsed dictionaries.
+     */
+    static void clearDictionaryCache() {
+        synchronized (DICTIONARY_CACHE) {
+            DICTIONARY_CACHE.clear();
+        }
+    }
+
     /**
      * Read dictionary from an input stream.
      * We use the same logic as Apache Felix FileInstall here:
@@ -25,12 +25,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -46,8 +45,8 @@ import org.apache.sling.installer.api.UpdateHandler;
 import org.apache.sling.installer.api.UpdateResult;
 import org.apache.sling.installer.api.info.InfoProvider;
 import org.apache.sling.installer.api.info.InstallationState;
-import org.apache.sling.installer.api.info.Resource;
-import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.info.InstallerMetrics;
+import org.apache.sling.installer.api.info.PhaseStatistics;
 import org.apache.sling.installer.api.tasks.ChangeStateTask;
 import org.apache.sling.installer.api.tasks.InstallTask;
 import org.apache.sling.installer.api.tasks.InstallTaskFactory;
@@ -61,13 +60,12 @@ import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
 import org.apache.sling.installer.api.tasks.TransformationResult;
 import org.apache.sling.installer.api.tasks.UpdatableResourceGroup;
+import org.apache.sling.installer.core.impl.tasks.BundleLocationIndex;
 import org.apache.sling.installer.core.impl.tasks.BundleUpdateTask;
-import org.jetbrains.annotations.Nullable;
+import org.apache.sling.installer.core.impl.util.InstallerEventType;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
-import org.osgi.framework.Version;
 import org.osgi.service.startlevel.StartLevel;
 import org.osgi.util.converter.Converters;
 import org.slf4j.Logger;
@@ -99,6 +97,12 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
      */
     private static final String PROP_REQUIRED_SERVICES = "sling.installer.requiredservices";
 
+    /**
+     * The name of the framework property defining the duration in milliseconds
+     * after which a summary of an installer cycle is logged
+     */
+    private static final String PROP_CYCLE_SUMMARY_THRESHOLD = "sling.installer.cyclesummarythreshold";
+
     /** The logger */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -117,8 +121,17 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
     /** Removed resources from clients. */
     private final Set<String> urlsToRemove = new HashSet<>();
 
-    /** Update infos to process. */
-    private final List<UpdateInfo> updateInfos = new ArrayList<>();
+    /**
+     * Update infos to process, by resource type and entity id. Only the last
+     * update for an entity is kept, in the order of the updates.
+     */
+    private final Map<String, UpdateInfo> updateInfos = new LinkedHashMap<>();
+
+    /** The transformers by handled resource types and url extensions. Only used by the installer thread. */
+    private TransformerIndex transformerIndex;
+
+    /** The task factories by handled resource types. Only used by the installer thread. */
+    private TaskFactoryIndex taskFactoryIndex;
 
     /** Are the required services satisfied? */
     private volatile boolean satisfied = false;
@@ -156,6 +169,18 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
     /** Switch start level on bundle update? */
     private final boolean switchStartLevel;
 
+    /** The published installation state. */
+    private final InstallationStateSnapshot installationState = new InstallationStateSnapshot();
+
+    /** The index of the installed bundle resources by location, might be {@code null}. */
+    private volatile BundleLocationIndex bundleLocationIndex;
+
+    /** The installer metrics. */
+    private final InstallerMetricsImpl metrics;
+
+    /** Measures the phases of the installer cycles. */
+    private final CycleTimer cycleTimer;
+
     /**
      *  Constructor
      *
@@ -168,6 +193,14 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
         final File f = FileDataStore.SHARED.getDataFile("RegisteredResourceList.ser");
         this.listener = new InstallListener(ctx, logger);
         this.persistentList = new PersistentResourceList(f, listener);
+        this.metrics = new InstallerMetricsImpl(this.persistentList);
+        this.cycleTimer = new CycleTimer(
+                this.metrics,
+                logger,
+                Converters.standardConverter()
+                        .convert(ctx.getProperty(PROP_CYCLE_SUMMARY_THRESHOLD))
+                        .defaultValue(0L)
+                        .to(Long.class));
         this.switchStartLevel = Converters.standardConverter()
                 .convert(ctx.getProperty(PROP_START_LEVEL_HANDLING))
                 .defaultValue(Boolean.FALSE)
@@ -243,13 +276,24 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
         // start service trackers
         this.factoryTracker = new SortingServiceTracker<>(ctx, InstallTaskFactory.class.getName(), this);
         this.transformerTracker = new SortingServiceTracker<>(ctx, ResourceTransformer.class.getName(), this);
-        this.updateHandlerTracker = new UpdateHandlerTracker(ctx, this);
+        this.updateHandlerTracker = new UpdateHandlerTracker(ctx, this, this.bundleLocationIndex);
         this.updaterTracker = new SortingServiceTracker<>(ctx, ResourceUpdater.class.getName(), this);
         this.factoryTracker.open();
         this.transformerTracker.open();
         this.updateHandlerTracker.open();
         this.updaterTracker.open();
 
+        if (this.bundleLocationIndex != null) {
+            synchronized (this.resourcesLock) {
+                for (final String entityId : this.persistentList.getEntityIds()) {
+                    for (final TaskResource tr :
+                            this.persistentList.getEntityResourceList(entityId).getResources()) {
+                        this.bundleLocationIndex.add(tr);
+                    }
+                }
+            }
+        }
+
         this.logger.info("Apache Sling OSGi Installer Service started.");
         this.checkSatisfied();
     }
@@ -275,17 +319,26 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
 
             while (this.active) {
                 this.listener.start();
+                this.cycleTimer.cycleStarted();
 
-                this.handleResourceUpdaters();
+                long start = System.nanoTime();
+                final int updaterCount = this.handleResourceUpdaters();
+                this.cycleTimer.phaseCompleted(PhaseStatistics.RESOURCE_UPDATERS, start, updaterCount);
 
-                this.processUpdateInfos();
+                start = System.nanoTime();
+                final int updateInfoCount = this.processUpdateInfos();
+                this.cycleTimer.phaseCompleted(PhaseStatistics.UPDATE_INFOS, start, updateInfoCount);
 
                 // merge potential new resources
-                this.mergeNewlyRegisteredResources();
+                start = System.nanoTime();
+                final int mergedCount = this.mergeNewlyRegisteredResources();
+                this.cycleTimer.phaseCompleted(PhaseStatistics.MERGE, start, mergedCount);
+                this.publishInstallationState();
 
                 synchronized (this.resourcesLock) {
                     if (!this.satisfied) {
                         logger.debug("Required services are not available yet.");
+                        this.cycleTimer.cycleCompleted();
                         try {
                             logger.debug("wait() on resourcesLock");
                             this.resourcesLock.wait();
@@ -297,13 +350,19 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                 }
 
                 // invoke transformers
-                this.transformResources();
+                start = System.nanoTime();
+                final int transformedCount = this.transformResources();
+                this.cycleTimer.phaseCompleted(PhaseStatistics.TRANSFORM, start, transformedCount);
 
                 // Compute tasks
+                start = System.nanoTime();
                 final SortedSet<InstallTask> tasks = this.computeTasks();
+                this.cycleTimer.phaseCompleted(PhaseStatistics.COMPUTE_TASKS, start, tasks.size());
 
                 // execute tasks and see if we have to stop processing
                 final ACTION action = this.executeTasks(tasks);
+                this.publishInstallationState();
+                this.cycleTimer.cycleCompleted();
                 if (action == ACTION.SLEEP) {
                     synchronized (this.resourcesLock) {
                         // before we go to sleep, check if new resources arrived in the meantime
@@ -351,10 +410,23 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
         logger.debug("wakeUp called");
         this.listener.start();
         synchronized (this.resourcesLock) {
+            this.updatePendingChanges();
             this.resourcesLock.notify();
         }
     }
 
+    /**
+     * Update the metrics for the not yet processed changes.
+     * This method should only be invoked from within a synchronized (resourcesLock) block!
+     */
+    private void updatePendingChanges() {
+        int newResourceCount = this.newResources.size();
+        for (final List<InternalResource> list : this.newResourcesSchemes.values()) {
+            newResourceCount += list.size();
+        }
+        this.metrics.setPendingChanges(newResourceCount, this.updateInfos.size(), this.urlsToRemove.size());
+    }
+
     /**
      * Checks if new resources are available.
      * This method should only be invoked from within a synchronized (newResources) block!
@@ -461,7 +533,7 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                         final InternalResource rsrc = rsrcIter.next();
                         if (removedUrls.remove(rsrc.getURL())) {
                             if (rsrc.getPrivateCopyOfFile() != null) {
-                                rsrc.getPrivateCopyOfFile().delete();
+                                FileDataStore.SHARED.deleteDataFile(rsrc.getPrivateCopyOfFile());
                             }
                             rsrcIter.remove();
                         }
@@ -546,13 +618,21 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
 
             if (existing.getPrivateCopyOfFile() != null) {
                 logger.debug("Private data file not needed anymore, deleting it: {}", existing.getURL());
-                existing.getPrivateCopyOfFile().delete();
+                FileDataStore.SHARED.deleteDataFile(existing.getPrivateCopyOfFile());
             }
         }
     }
 
-    private void mergeNewlyRegisteredResources() {
+    /**
+     * Merge the newly registered resources and the removals.
+     * @return The number of merged changes
+     */
+    private int mergeNewlyRegisteredResources() {
         synchronized (this.resourcesLock) {
+            int count = this.newResources.size() + this.urlsToRemove.size();
+            for (final List<InternalResource> list : this.newResourcesSchemes.values()) {
+                count += list.size();
+            }
             for (final Map.Entry<String, List<InternalResource>> entry : this.newResourcesSchemes.entrySet()) {
                 final String scheme = entry.getKey();
                 final List<InternalResource> registeredResources = entry.getValue();
@@ -605,6 +685,7 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
             printResources("Merged");
             // persist list
             this.persistentList.save();
+            return count;
         }
     }
 
@@ -662,17 +743,23 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
      * Compute OSGi tasks based on our resources, and add to supplied list of tasks.
      */
     private SortedSet<InstallTask> computeTasks() {
-        final SortedSet<InstallTask> tasks = new TreeSet<>();
+        final SortedSet<InstallTask> tasks = new TreeSet<>(TaskSortKey.COMPARATOR);
 
         // Walk the list of entities, and create appropriate OSGi tasks for each group
-        final List<InstallTaskFactory> services = this.factoryTracker.getSortedServices();
-        if (services.size() > 0) {
+        final List<ServiceReference<InstallTaskFactory>> serviceRefs = this.factoryTracker.getSortedServiceReferences();
+        TaskFactoryIndex index = this.taskFactoryIndex;
+        if (index == null || !index.isIndexOf(serviceRefs)) {
+            index = new TaskFactoryIndex(serviceRefs, this.factoryTracker);
+            this.taskFactoryIndex = index;
+        }
+        if (!index.isEmpty()) {
             for (final String entityId : this.persistentList.getEntityIds()) {
                 final EntityResourceList group = this.persistentList.getEntityResourceList(entityId);
                 // Check the first resource in each group
                 final TaskResource toActivate = group.getActiveResource();
                 if (toActivate != null) {
-                    final InstallTask task = getTask(services, group);
+                    // only ask the factories handling the resource type
+                    final InstallTask task = getTask(index.getFactories(toActivate.getType()), group);
                     if (task != null) {
                         tasks.add(task);
                     }
@@ -868,6 +955,8 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                     }
                 }
             };
+            final long start = System.nanoTime();
+            int executed = 0;
             while (this.active && !tasks.isEmpty()) {
                 InstallTask task = null;
                 synchronized (tasks) {
@@ -919,15 +1008,38 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                         }
                     };
                     t.start();
+                    this.cycleTimer.phaseCompleted(PhaseStatistics.EXECUTE_TASKS, start, executed);
                     return ACTION.SHUTDOWN;
                 }
+                boolean failed = false;
+                final TaskResource rsrc = task.getResource();
+                final ResourceState stateBefore = rsrc == null ? null : rsrc.getState();
+                final InstallerEventType.Event event = InstallerEventType.TASK.begin();
                 try {
                     logger.debug("Executing task: {}", task);
                     task.execute(ctx);
                 } catch (final Throwable t) {
+                    failed = true;
                     logger.error("Uncaught exception during task execution!", t);
                 }
+                if (!failed && rsrc != null) {
+                    // a task gives up on a resource by ignoring it with an error
+                    failed = stateBefore != ResourceState.IGNORED
+                            && rsrc.getState() == ResourceState.IGNORED
+                            && rsrc.getError() != null;
+                }
+                if (event.isEnabled()) {
+                    event.commit(
+                            task.getClass().getName(),
+                            rsrc == null ? null : rsrc.getEntityId(),
+                            task.getSortKey(),
+                            rsrc == null ? null : rsrc.getState().name(),
+                            failed);
+                }
+                this.metrics.taskExecuted(task, failed);
+                executed++;
             }
+            this.cycleTimer.phaseCompleted(PhaseStatistics.EXECUTE_TASKS, start, executed);
             // save new state
             final boolean newCycle = this.cleanupInstallableResources();
             if (newCycle) {
@@ -943,8 +1055,12 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
      */
     private boolean cleanupInstallableResources() {
         synchronized (this.resourcesLock) {
+            final long start = System.nanoTime();
+            final long persistedBytes = this.persistentList.getPersistedBytes();
             final boolean result = this.persistentList.compact();
             this.persistentList.save();
+            this.cycleTimer.phaseCompleted(
+                    PhaseStatistics.PERSIST, start, this.persistentList.getPersistedBytes() - persistedBytes);
             printResources("Compacted");
             logger.debug("cleanupInstallableResources returns {}", result);
             return result;
@@ -953,36 +1069,41 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
 
     /**
      * Invoke the transformers on the resources.
+     * @return The number of transformed resources
      */
-    private void transformResources() {
-        boolean changed = false;
+    private int transformResources() {
+        int transformed = 0;
         final List<ServiceReference<ResourceTransformer>> serviceRefs =
                 this.transformerTracker.getSortedServiceReferences();
 
         if (serviceRefs.size() > 0) {
+            TransformerIndex index = this.transformerIndex;
+            if (index == null || !index.isIndexOf(serviceRefs)) {
+                index = new TransformerIndex(serviceRefs);
+                this.transformerIndex = index;
+            }
             synchronized (this.resourcesLock) {
-                // Walk the list of unknown resources and invoke all transformers
-                int index = 0;
+                // Walk the list of unknown resources and invoke all transformers handling them
+                int pos = 0;
                 final List<RegisteredResource> unknownList = this.persistentList.getUntransformedResources();
 
-                while (index < unknownList.size()) {
-                    final RegisteredResource resource = unknownList.get(index);
-                    for (final ServiceReference<ResourceTransformer> reference : serviceRefs) {
-                        final Long id = (Long) reference.getProperty(Constants.SERVICE_ID);
+                while (pos < unknownList.size()) {
+                    final RegisteredResource resource = unknownList.get(pos);
+                    for (final TransformerIndex.Entry entry : index.getCandidates(resource)) {
                         // check if this transformer has already been invoked for the resource
-                        final String transformers = (String)
-                                ((RegisteredResourceImpl) resource).getAttribute(ResourceTransformer.class.getName());
-                        if (id == null || (transformers != null && transformers.contains(":" + id + ':'))) {
+                        if (TransformerIndex.isInvoked((RegisteredResourceImpl) resource, entry.id)) {
                             continue;
                         }
-                        final ResourceTransformer transformer = this.transformerTracker.getService(reference);
+                        final ResourceTransformer transformer = this.transformerTracker.getService(entry.reference);
                         if (transformer != null) {
+                            final InstallerEventType.Event event = InstallerEventType.TRANSFORM.begin();
                             try {
                                 final TransformationResult[] result = transformer.transform(resource);
-                                final String newTransformers =
-                                        (transformers == null ? ":" + id + ':' : transformers + id + ':');
-                                ((RegisteredResourceImpl) resource)
-                                        .setAttribute(ResourceTransformer.class.getName(), newTransformers);
+                                event.commit(
+                                        transformer.getClass().getName(),
+                                        resource.getURL(),
+                                        result == null ? 0 : result.length);
+                                TransformerIndex.setInvoked((RegisteredResourceImpl) resource, entry.id);
                                 if (logger.isDebugEnabled()) {
                                     logger.debug(
                                             "Invoked transformer {} on {} : {}",
@@ -990,8 +1111,8 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                                 }
                                 if (result != null && result.length > 0) {
                                     this.persistentList.transform(resource, result);
-                                    changed = true;
-                                    index--;
+                                    transformed++;
+                                    pos--;
                                     break;
                                 }
                             } catch (final Throwable t) {
@@ -999,14 +1120,15 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                             }
                         }
                     }
-                    index++;
+                    pos++;
                 }
             }
-            if (changed) {
+            if (transformed > 0) {
                 this.persistentList.save();
                 printResources("Transformed");
             }
         }
+        return transformed;
     }
 
     private void checkSatisfied() {
@@ -1079,7 +1201,7 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
             ui.attributes = attributes;
 
             synchronized (this.resourcesLock) {
-                updateInfos.add(ui);
+                this.addUpdateInfo(ui);
                 this.wakeUp();
             }
         } catch (final IOException ioe) {
@@ -1107,20 +1229,36 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
         ui.entityId = resourceId;
 
         synchronized (this.resourcesLock) {
-            updateInfos.add(ui);
+            this.addUpdateInfo(ui);
             this.wakeUp();
         }
     }
 
+    /**
+     * Add an update info to the queue, replacing a not yet processed update
+     * of the same entity. The caller must hold the resources lock.
+     */
+    private void addUpdateInfo(final UpdateInfo ui) {
+        final UpdateInfo superseded = this.updateInfos.remove(ui.resourceType + ':' + ui.entityId);
+        if (superseded != null) {
+            logger.debug("Replacing not yet processed update of {}:{}", ui.resourceType, ui.entityId);
+            if (superseded.data != null) {
+                superseded.data.cleanup();
+            }
+        }
+        this.updateInfos.put(ui.resourceType + ':' + ui.entityId, ui);
+    }
+
     /**
      * Process the internal queue of updates
      * @see org.apache.sling.installer.api.ResourceChangeListener#resourceAddedOrUpdated(java.lang.String, java.lang.String, java.io.InputStream, java.util.Dictionary, Map)
      * @see org.apache.sling.installer.api.ResourceChangeListener#resourceRemoved(java.lang.String, java.lang.String)
+     * @return The number of processed updates
      */
-    private void processUpdateInfos() {
+    private int processUpdateInfos() {
         final List<UpdateInfo> infos = new ArrayList<>();
         synchronized (resourcesLock) {
-            infos.addAll(updateInfos);
+            infos.addAll(updateInfos.values());
             updateInfos.clear();
         }
         for (final UpdateInfo info : infos) {
@@ -1131,6 +1269,7 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
                 this.internalResourceRemoved(info.resourceType, info.entityId);
             }
         }
+        return infos.size();
     }
 
     private boolean handleExternalUpdateWithoutWriteBack(final EntityResourceList erl) {
@@ -1397,223 +1536,64 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
     /**
      * Search a handler for the scheme.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     private UpdateHandler findHandler(final String scheme) {
-        final List<ServiceReference<UpdateHandler>> references = this.updateHandlerTracker.getSortedServiceReferences();
-        for (final ServiceReference ref : references) {
-            final String[] supportedSchemes = Converters.standardConverter()
-                    .convert(ref.getProperty(UpdateHandler.PROPERTY_SCHEMES))
-                    .to(String[].class);
-            for (final String support : supportedSchemes) {
-                if (scheme.equals(support)) {
-                    return this.updateHandlerTracker.getService(ref);
-                }
-            }
-        }
-        return null;
+        return this.updateHandlerTracker.getHandler(scheme);
     }
 
     /**
-     * @see org.apache.sling.installer.api.info.InfoProvider#getInstallationState()
+     * Set the index of the installed bundle resources, which is used to serve
+     * the urls of installed bundles. Must be called before the installer is started.
      */
-    @Override
-    public InstallationState getInstallationState() {
-        synchronized (this.resourcesLock) {
-            final InstallationState state = new InstallationState() {
-
-                private final List<ResourceGroup> activeResources = new ArrayList<>();
-                private final List<ResourceGroup> installedResources = new ArrayList<>();
-                private final List<RegisteredResource> untransformedResources = new ArrayList<>();
-
-                @Override
-                public List<ResourceGroup> getActiveResources() {
-                    return activeResources;
-                }
-
-                @Override
-                public List<ResourceGroup> getInstalledResources() {
-                    return installedResources;
-                }
-
-                @Override
-                public List<RegisteredResource> getUntransformedResources() {
-                    return untransformedResources;
-                }
-
-                @Override
-                public String toString() {
-                    return "InstallationState[active resources: " + this.activeResources + ", installed resources: "
-                            + this.installedResources + ", untransformed resources: "
-                            + this.untransformedResources + "]";
-                }
-            };
-
-            for (final String entityId : this.persistentList.getEntityIds()) {
-                if (!this.persistentList.isSpecialEntityId(entityId)) {
-                    final EntityResourceList group = this.persistentList.getEntityResourceList(entityId);
-
-                    final String alias = group.getAlias();
-                    final List<Resource> resources = new ArrayList<>();
-                    boolean first = true;
-                    boolean isActive = false;
-                    for (final TaskResource tr : group.getResources()) {
-                        final ResourceState resourceState = tr.getState();
-                        if (first) {
-                            if (resourceState == ResourceState.INSTALL || resourceState == ResourceState.UNINSTALL) {
-                                isActive = true;
-                            }
-                            first = false;
-                        }
-                        resources.add(new Resource() {
-
-                            @Override
-                            public String getScheme() {
-                                return tr.getScheme();
-                            }
-
-                            @Override
-                            public String getURL() {
-                                return tr.getURL();
-                            }
-
-                            @Override
-                            public String getType() {
-                                return tr.getType();
-                            }
-
-                            @Override
-                            public InputStream getInputStream() throws IOException {
-                                return tr.getInputStream();
-                            }
-
-                            @Override
-                            public Dictionary<String, Object> getDictionary() {
-                                return tr.getDictionary();
-                            }
-
-                            @Override
-                            public String getDigest() {
-                                return tr.getDigest();
-                            }
-
-                            @Override
-                            public int getPriority() {
-                                return tr.getPriority();
-                            }
-
-                            @Override
-                            public String getEntityId() {
-                                return tr.getEntityId();
-                            }
-
-                            @Override
-                            public ResourceState getState() {
-                                return resourceState;
-                            }
-
-                            @Override
-                            public Version getVersion() {
-                                return tr.getVersion();
-                            }
-
-                            @Override
-                            public long getLastChange() {
-                                return ((RegisteredResourceImpl) tr).getLastChange();
-                            }
-
-                            @Override
-                            public Object getAttribute(final String key) {
-                                return tr.getAttribute(key);
-                            }
-
-                            @Override
-                            @Nullable
-                            public String getError() {
-                                return tr.getError();
-                            }
-
-                            @Override
-                            public String toString() {
-                                return "resource[entityId=" + getEntityId() + ", scheme="
-                                        + getScheme() + ", url="
-                                        + getURL() + ", type="
-                                        + getType() + ", error="
-                                        + getError() + ", state="
-                                        + getState() + ", version="
-                                        + getVersion() + ", lastChange="
-                                        + getLastChange() + ", priority="
-                                        + getPriority() + ", digest="
-                                        + getDigest() + "]";
-                            }
-                        });
-                    }
-                    final ResourceGroup rg = new ResourceGroup() {
-
-                        @Override
-                        public List<Resource> getResources() {
-                            return resources;
-                        }
-
-                        @Override
-                        public String getAlias() {
-                            return alias;
-                        }
-
-                        @Override
-                        public String toString() {
-                            return "group[" + resources + "]";
-                        }
-                    };
-                    if (isActive) {
-                        state.getActiveResources().add(rg);
-                    } else {
-                        state.getInstalledResources().add(rg);
-                    }
-                }
-            }
+    public void setBundleLocationIndex(final BundleLocationIndex index) {
+        this.bundleLocationIndex = index;
+    }
 
-            Collections.sort(state.getActiveResources(), COMPARATOR);
-            Collections.sort(state.getInstalledResources(), COMPARATOR);
+    /**
+     * Get the installer metrics.
+     */
+    public InstallerMetrics getMetrics() {
+        return this.metrics;
+    }
 
-            state.getUntransformedResources().addAll(this.persistentList.getUntransformedResources());
+    /**
+     * Get the listener proxy, it knows whether the installer is in a cycle.
+     */
+    InstallListener getInstallListener() {
+        return this.listener;
+    }
 
+    /**
+     * @see org.apache.sling.installer.api.info.InfoProvider#getInstallationState()
+     */
+    @Override
+    public InstallationState getInstallationState() {
+        final InstallationState state = this.installationState.get();
+        if (state != null) {
             return state;
         }
+        return this.publishInstallationState();
     }
 
-    private static final Comparator<ResourceGroup> COMPARATOR = new Comparator<ResourceGroup>() {
-
-        @Override
-        public int compare(ResourceGroup o1, ResourceGroup o2) {
-            RegisteredResource r1 = null;
-            RegisteredResource r2 = null;
-            if (o1.getResources().size() > 0) {
-                r1 = o1.getResources().iterator().next();
-            }
-            if (o2.getResources().size() > 0) {
-                r2 = o2.getResources().iterator().next();
-            }
-            int result;
-            if (r1 == null && r2 == null) {
-                result = 0;
-            } else if (r1 == null) {
-                result = -1;
-            } else if (r2 == null) {
-                result = 1;
-            } else {
-                result = r1.getType().compareTo(r2.getType());
-                if (result == 0) {
-                    result = r1.getEntityId().compareTo(r2.getEntityId());
-                }
-            }
-            return result;
+    /**
+     * Publish a new snapshot of the installation state.
+     */
+    private InstallationState publishInstallationState() {
+        synchronized (this.resourcesLock) {
+            final InstallationState state = this.installationState.publish(this.persistentList);
+            this.metrics.setInstallationState(
+                    state,
+                    this.installationState.getResourceCountByState(),
+                    this.installationState.getResourceCountByType());
+            this.updatePendingChanges();
+            return state;
         }
-    };
+    }
 
     /**
      * Handle resource updates
+     * @return The number of invoked updaters
      */
-    private void handleResourceUpdaters() {
+    private int handleResourceUpdaters() {
         final List<ResourceUpdater> updaters = this.updaterTracker.getSortedServices();
         for (final ResourceUpdater up : updaters) {
             this.logger.info(
@@ -1675,6 +1655,7 @@ public class OsgiInstallerImpl implements OsgiInstaller, ResourceChangeListener,
             }
             up.update(groups);
         }
+        return updaters.size();
     }
 
     public static boolean isMultiVersionSupportEnabled(final BundleContext bundleContext) {
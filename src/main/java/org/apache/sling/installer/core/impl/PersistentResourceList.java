@@ -35,11 +35,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.event.InstallationListener;
 import org.apache.sling.installer.api.tasks.RegisteredResource;
 import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.apache.sling.installer.core.impl.util.InstallerEventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +80,9 @@ public class PersistentResourceList {
 
     private final InstallationListener listener;
 
+    /** Number of bytes written when persisting the list. */
+    private final AtomicLong persistedBytes = new AtomicLong();
+
     @SuppressWarnings("unchecked")
     public PersistentResourceList(final File dataFile, final InstallationListener listener) {
         this.dataFile = dataFile;
@@ -169,7 +174,9 @@ public class PersistentResourceList {
      * Persist the current state
      */
     public void save() {
+        final InstallerEventType.Event event = InstallerEventType.PERSIST.begin();
         try {
+            final long previousLength = dataFile.length();
             final ObjectOutputStream oos =
                     new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)));
             try {
@@ -180,11 +187,24 @@ public class PersistentResourceList {
             } finally {
                 oos.close();
             }
+            final long length = dataFile.length();
+            this.persistedBytes.addAndGet(length);
+            if (FileDataStore.SHARED != null) {
+                FileDataStore.SHARED.fileWritten(dataFile, previousLength);
+            }
+            event.commit(dataFile.getPath(), length);
         } catch (final Exception e) {
             logger.warn("Unable to save persistent list: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Number of bytes written by {@link #save()} since creation.
+     */
+    public long getPersistedBytes() {
+        return this.persistedBytes.get();
+    }
+
     public Collection<String> getEntityIds() {
         return this.data.keySet();
     }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.info.PhaseStatistics;
+
+/**
+ * Collects the timing statistics of one phase.
+ * Runs are recorded by the installer thread, readers get a copy.
+ */
+public class PhaseStatisticsImpl implements PhaseStatistics {
+
+    /** The inclusive upper bounds of the buckets in milliseconds. */
+    private static final long[] BUCKET_BOUNDS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000
+    };
+
+    private final String phase;
+
+    private long count;
+
+    private long totalTime;
+
+    private long maxTime;
+
+    private long lastTime;
+
+    private long itemCount;
+
+    private long lastItemCount;
+
+    private final long[] bucketCounts;
+
+    public PhaseStatisticsImpl(final String phase) {
+        this.phase = phase;
+        this.bucketCounts = new long[BUCKET_BOUNDS.length + 1];
+    }
+
+    private PhaseStatisticsImpl(final PhaseStatisticsImpl source) {
+        this.phase = source.phase;
+        this.count = source.count;
+        this.totalTime = source.totalTime;
+        this.maxTime = source.maxTime;
+        this.lastTime = source.lastTime;
+        this.itemCount = source.itemCount;
+        this.lastItemCount = source.lastItemCount;
+        this.bucketCounts = source.bucketCounts.clone();
+    }
+
+    /**
+     * Record a run of the phase.
+     * @param nanos The duration in nanoseconds
+     * @param items The number of processed items
+     */
+    public synchronized void record(final long nanos, final long items) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        this.count++;
+        this.totalTime += micros;
+        this.maxTime = Math.max(this.maxTime, micros);
+        this.lastTime = micros;
+        this.itemCount += items;
+        this.lastItemCount = items;
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int index = 0;
+        while (index < BUCKET_BOUNDS.length && millis > BUCKET_BOUNDS[index]) {
+            index++;
+        }
+        this.bucketCounts[index]++;
+    }
+
+    /**
+     * Create a copy of the current values.
+     */
+    public synchronized PhaseStatistics copy() {
+        return new PhaseStatisticsImpl(this);
+    }
+
+    @Override
+    public String getPhase() {
+        return this.phase;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public synchronized long getTotalTime() {
+        return this.totalTime;
+    }
+
+    @Override
+    public synchronized long getMaxTime() {
+        return this.maxTime;
+    }
+
+    @Override
+    public synchronized long getLastTime() {
+        return this.lastTime;
+    }
+
+    @Override
+    public synchronized long getItemCount() {
+        return this.itemCount;
+    }
+
+    @Override
+    public synchronized long getLastItemCount() {
+        return this.lastItemCount;
+    }
+
+    @Override
+    public long[] getBucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    @Override
+    public synchronized long[] getBucketCounts() {
+        return this.bucketCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseStatistics[phase=" + this.phase + ", count=" + this.getCount() + ", totalTime="
+                + this.getTotalTime() + ", maxTime=" + this.getMaxTime() + ", itemCount=" + this.getItemCount() + "]";
+    }
+}
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -83,11 +84,26 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
     /** Temporary attributes. */
     private transient Map<String, Object> temporaryAttributes;
 
+    /** The group this resource belongs to, notified about changes of the ordering. */
+    private transient EntityResourceList group;
+
+    /** The parsed version, only valid if {@link #versionResolved} is set. */
+    private transient Version version;
+
+    /** Is the version a snapshot? Only valid if {@link #versionResolved} is set. */
+    private transient boolean snapshot;
+
+    /** Has the version attribute been parsed? */
+    private transient boolean versionResolved;
+
     private boolean cleanedUp = false;
 
     /** When was the last status change? */
     private long lastChange = -1;
 
+    /** Counter for changes visible through the info API. */
+    private transient int modCount;
+
     /** the potential error related to this resource */
     private String error;
 
@@ -255,7 +271,7 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
      */
     private void removeDataFile() {
         if (this.dataFile != null && this.dataFile.exists()) {
-            this.dataFile.delete();
+            FileDataStore.SHARED.deleteDataFile(this.dataFile);
         }
         this.dataUri = null;
     }
@@ -348,6 +364,12 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
         } else {
             this.attributes.put(key, value);
         }
+        this.modCount++;
+        if (Constants.BUNDLE_VERSION.equals(key)) {
+            // the version is used for the ordering
+            this.versionResolved = false;
+            this.orderChanged();
+        }
     }
 
     /**
@@ -379,8 +401,30 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
      */
     public void setState(final ResourceState s, String error) {
         this.lastChange = System.currentTimeMillis();
+        this.modCount++;
+        final boolean changed = this.state != s;
         this.state = s;
         this.error = error;
+        if (changed) {
+            this.orderChanged();
+        }
+    }
+
+    /**
+     * Set the group this resource belongs to.
+     */
+    void setGroup(final EntityResourceList group) {
+        this.group = group;
+    }
+
+    /**
+     * Notify the group about a change relevant for the ordering.
+     */
+    private void orderChanged() {
+        final EntityResourceList g = this.group;
+        if (g != null) {
+            g.resourceChanged(this);
+        }
     }
 
     /**
@@ -391,6 +435,31 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
         return this.lastChange;
     }
 
+    /**
+     * Get a counter which changes whenever the state, the attributes or
+     * the content of this resource changes.
+     */
+    int getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Get a copy of the attributes.
+     */
+    Map<String, Object> copyAttributes() {
+        return new HashMap<>(this.attributes);
+    }
+
+    /**
+     * Get a copy of the temporary attributes.
+     */
+    Map<String, Object> copyTemporaryAttributes() {
+        if (this.temporaryAttributes == null) {
+            return Collections.emptyMap();
+        }
+        return new HashMap<>(this.temporaryAttributes);
+    }
+
     /**
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -437,8 +506,7 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
             if (!vb.equals(va)) {
                 return false;
             }
-            final boolean isSnapshot = va.toString().contains("SNAPSHOT");
-            if (!isSnapshot) {
+            if (!a.isSnapshot()) {
                 return true;
             }
         }
@@ -473,14 +541,18 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
 
             if (va != null && vb != null) {
                 hasVersion = true;
-                isSnapshot = va.toString().contains("SNAPSHOT");
                 // higher version has more priority, must come first so invert comparison
                 result = vb.compareTo(va);
+                if (result == 0) {
+                    isSnapshot = a instanceof RegisteredResourceImpl
+                            ? ((RegisteredResourceImpl) a).isSnapshot()
+                            : isSnapshot(va);
+                }
             }
 
             // Then by priority, higher values first
             if (result == 0) {
-                result = Integer.valueOf(b.getPriority()).compareTo(a.getPriority());
+                result = Integer.compare(b.getPriority(), a.getPriority());
             }
 
             if (result == 0 && isSnapshot) {
@@ -579,12 +651,14 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
         if (tr.getVersion() != null) {
             this.attributes.put(Constants.BUNDLE_VERSION, tr.getVersion().toString());
         }
+        this.versionResolved = false;
     }
 
     /**
      * Update the resource uri - if provided.
      */
     public void update(final InternalResource rsrc) {
+        this.modCount++;
         if (rsrc.getResourceUri() != null) {
             FileDataStore.SHARED.removeFromDigestCache(this.url, this.digest);
             this.removeDataFile();
@@ -613,6 +687,7 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
      */
     public void updateResourceUri(final String updatedResourceUri) {
         if (updatedResourceUri != null) {
+            this.modCount++;
             FileDataStore.SHARED.removeFromDigestCache(this.url, this.digest);
             this.removeDataFile();
             this.dataUri = updatedResourceUri;
@@ -664,8 +739,10 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
         this.digest = digest;
         this.priority = priority;
         this.url = url;
+        this.modCount++;
         final int pos = url.indexOf(':');
         this.urlScheme = url.substring(0, pos);
+        this.orderChanged();
     }
 
     /**
@@ -673,8 +750,30 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
      */
     @Override
     public Version getVersion() {
-        final String vInfo = (String) this.getAttribute(Constants.BUNDLE_VERSION);
-        return (vInfo == null ? null : new Version(vInfo));
+        if (!this.versionResolved) {
+            final String vInfo = (String) this.getAttribute(Constants.BUNDLE_VERSION);
+            this.version = (vInfo == null ? null : new Version(vInfo));
+            this.snapshot = this.version != null && isSnapshot(this.version);
+            this.versionResolved = true;
+        }
+        return this.version;
+    }
+
+    /**
+     * Check whether the version of this resource is a snapshot version.
+     * @return {@code true} if the resource has a snapshot version.
+     */
+    public boolean isSnapshot() {
+        this.getVersion();
+        return this.snapshot;
+    }
+
+    /**
+     * Check if the version is a snapshot version.
+     * The marker can only be part of the qualifier.
+     */
+    private static boolean isSnapshot(final Version v) {
+        return v.getQualifier().contains("SNAPSHOT");
     }
 
     @Override
@@ -685,5 +784,7 @@ public class RegisteredResourceImpl implements TaskResource, Serializable, Compa
 
     public void updateEntityId(final String newId) {
         this.entity = newId;
+        this.modCount++;
+        this.orderChanged();
     }
 }
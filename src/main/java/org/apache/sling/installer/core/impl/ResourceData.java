@@ -94,4 +94,13 @@ public class ResourceData {
     public File getDataFile() {
         return this.dataFile;
     }
+
+    /**
+     * Remove the data file of data which is not used.
+     */
+    public void cleanup() {
+        if (this.dataFile != null && this.dataFile.exists()) {
+            FileDataStore.SHARED.deleteDataFile(this.dataFile);
+        }
+    }
 }
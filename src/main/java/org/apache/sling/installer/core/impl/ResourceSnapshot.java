@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Version;
+
+/**
+ * An immutable copy of the values of a resource.
+ *
+ * It is used for the installation state and as the source of the
+ * installation events, as both are read by other threads while the
+ * installer keeps changing the resource. Only the content is read from
+ * the resource on demand, it is not available anymore once the data
+ * file of the resource has been removed.
+ */
+final class ResourceSnapshot implements Resource, TaskResource {
+
+    private final RegisteredResourceImpl content;
+
+    private final String scheme;
+
+    private final String url;
+
+    private final String type;
+
+    private final Dictionary<String, Object> dictionary;
+
+    private final String digest;
+
+    private final int priority;
+
+    private final String entityId;
+
+    private final ResourceState resourceState;
+
+    private final Version version;
+
+    private final long lastChange;
+
+    private final Map<String, Object> attributes;
+
+    private final Map<String, Object> temporaryAttributes;
+
+    private final String error;
+
+    public ResourceSnapshot(final RegisteredResourceImpl tr) {
+        this.content = tr;
+        this.scheme = tr.getScheme();
+        this.url = tr.getURL();
+        this.type = tr.getType();
+        this.dictionary = copy(tr.getDictionary());
+        this.digest = tr.getDigest();
+        this.priority = tr.getPriority();
+        this.entityId = tr.getEntityId();
+        this.resourceState = tr.getState();
+        this.version = tr.getVersion();
+        this.lastChange = tr.getLastChange();
+        this.attributes = tr.copyAttributes();
+        this.temporaryAttributes = tr.copyTemporaryAttributes();
+        this.error = tr.getError();
+    }
+
+    private static Dictionary<String, Object> copy(final Dictionary<String, Object> dict) {
+        if (dict == null) {
+            return null;
+        }
+        final Hashtable<String, Object> result = new Hashtable<>();
+        final Enumeration<String> keys = dict.keys();
+        while (keys.hasMoreElements()) {
+            final String key = keys.nextElement();
+            result.put(key, dict.get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public String getScheme() {
+        return scheme;
+    }
+
+    @Override
+    public String getURL() {
+        return url;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return content.getInputStream();
+    }
+
+    @Override
+    public Dictionary<String, Object> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String getDigest() {
+        return digest;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public ResourceState getState() {
+        return resourceState;
+    }
+
+    @Override
+    public Version getVersion() {
+        return version;
+    }
+
+    @Override
+    public long getLastChange() {
+        return lastChange;
+    }
+
+    @Override
+    public Object getAttribute(final String key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * The copy can't be changed.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setAttribute(final String key, final Object value) {
+        throw new UnsupportedOperationException("Resource " + url + " can't be changed.");
+    }
+
+    @Override
+    public Object getTemporaryAttribute(final String key) {
+        return temporaryAttributes.get(key);
+    }
+
+    /**
+     * The copy can't be changed.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setTemporaryAttribute(final String key, final Object value) {
+        throw new UnsupportedOperationException("Resource " + url + " can't be changed.");
+    }
+
+    @Override
+    @Nullable
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "resource[entityId=" + getEntityId() + ", scheme="
+                + getScheme() + ", url="
+                + getURL() + ", type="
+                + getType() + ", error="
+                + getError() + ", state="
+                + getState() + ", version="
+                + getVersion() + ", lastChange="
+                + getLastChange() + ", priority="
+                + getPriority() + ", digest="
+                + getDigest() + "]";
+    }
+}
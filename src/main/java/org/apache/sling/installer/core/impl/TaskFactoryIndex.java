@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sling.installer.api.tasks.InstallTaskFactory;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Index of the install task factories by the resource types they handle,
+ * as declared with {@link InstallTaskFactory#RESOURCE_TYPES}. Factories
+ * without this property are candidates for all resource types.
+ *
+ * The index is created for a sorted list of factory references and
+ * returns the candidates in the same order.
+ */
+class TaskFactoryIndex {
+
+    private final List<ServiceReference<InstallTaskFactory>> references;
+
+    private final List<InstallTaskFactory> factories = new ArrayList<>();
+
+    /** The handled resource types by factory, {@code null} for all types. */
+    private final List<Set<String>> types = new ArrayList<>();
+
+    /** The candidates by resource type, created on demand. */
+    private final Map<String, List<InstallTaskFactory>> factoriesByType = new HashMap<>();
+
+    TaskFactoryIndex(
+            final List<ServiceReference<InstallTaskFactory>> references,
+            final SortingServiceTracker<InstallTaskFactory> tracker) {
+        this.references = references;
+        for (final ServiceReference<InstallTaskFactory> reference : references) {
+            final InstallTaskFactory factory = tracker.getService(reference);
+            if (factory != null) {
+                final String[] values = TransformerIndex.getStrings(reference, InstallTaskFactory.RESOURCE_TYPES);
+                this.factories.add(factory);
+                this.types.add(values == null ? null : new HashSet<>(Arrays.asList(values)));
+            }
+        }
+    }
+
+    /**
+     * Check whether this index has been created for the provided references.
+     */
+    boolean isIndexOf(final List<ServiceReference<InstallTaskFactory>> references) {
+        return this.references == references;
+    }
+
+    /**
+     * Check whether the index contains any factory.
+     */
+    boolean isEmpty() {
+        return this.factories.isEmpty();
+    }
+
+    /**
+     * Get the factories handling the resource type, in the order of the references.
+     */
+    List<InstallTaskFactory> getFactories(final String type) {
+        List<InstallTaskFactory> result = this.factoriesByType.get(type);
+        if (result == null) {
+            result = new ArrayList<>();
+            for (int i = 0; i < this.factories.size(); i++) {
+                final Set<String> handled = this.types.get(i);
+                if (handled == null || handled.contains(type)) {
+                    result.add(this.factories.get(i));
+                }
+            }
+            this.factoriesByType.put(type, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.Comparator;
+
+import org.apache.sling.installer.api.tasks.InstallTask;
+
+/**
+ * Immutable, structured sort key of a task.
+ *
+ * The key consists of the phase, an optional start level and a tie breaker.
+ * The string representation is the same as the classic sort key
+ * ({@code <phase>-<start level>-<tie breaker>}) and the ordering of two
+ * structured keys is always the same as the ordering of their string
+ * representations. This allows to mix tasks with and without a structured
+ * key in one sorted set, while comparing two structured keys only needs
+ * to look at the numbers in the common case.
+ */
+public final class TaskSortKey implements Comparable<TaskSortKey> {
+
+    /**
+     * Comparator for tasks which is consistent with {@link InstallTask#compareTo(InstallTask)}
+     * but uses the structured sort keys if both tasks provide one.
+     */
+    public static final Comparator<InstallTask> COMPARATOR = new Comparator<InstallTask>() {
+
+        @Override
+        public int compare(final InstallTask o1, final InstallTask o2) {
+            if (o1 == o2) {
+                return 0;
+            }
+            final TaskSortKey k1 = getTaskSortKey(o1);
+            final TaskSortKey k2 = getTaskSortKey(o2);
+            if (k1 != null && k2 != null) {
+                return k1.compareTo(k2);
+            }
+            return o1.compareTo(o2);
+        }
+    };
+
+    private final int phase;
+
+    /** Does the key contain a start level? */
+    private final boolean hasStartLevel;
+
+    /** The sortable start level, low levels first and {@code 0} last. */
+    private final int startLevel;
+
+    /** The length of the start level in the string representation. */
+    private final int startLevelLength;
+
+    private final String tieBreaker;
+
+    private final String key;
+
+    /**
+     * Create a key without a start level.
+     * @param phase The phase, between 0 and 99
+     * @param tieBreaker The tie breaker, usually the url or the entity id
+     */
+    public TaskSortKey(final int phase, final String tieBreaker) {
+        this(phase, false, 0, tieBreaker);
+    }
+
+    /**
+     * Create a key with a start level.
+     * @param phase The phase, between 0 and 99
+     * @param startLevel The start level, {@code 0} sorts after all other start levels
+     * @param tieBreaker The tie breaker, usually the url or the entity id
+     */
+    public TaskSortKey(final int phase, final int startLevel, final String tieBreaker) {
+        this(phase, true, startLevel, tieBreaker);
+    }
+
+    private TaskSortKey(final int phase, final boolean hasStartLevel, final int startLevel, final String tieBreaker) {
+        if (phase < 0 || phase > 99) {
+            throw new IllegalArgumentException("Phase must be between 0 and 99: " + phase);
+        }
+        this.phase = phase;
+        this.tieBreaker = tieBreaker;
+        final StringBuilder sb = new StringBuilder();
+        if (phase < 10) {
+            sb.append('0');
+        }
+        sb.append(phase).append('-');
+        this.hasStartLevel = hasStartLevel;
+        if (hasStartLevel) {
+            this.startLevel = startLevel == 0 ? 999 : startLevel;
+            final int pos = sb.length();
+            if (this.startLevel < 10) {
+                sb.append("00");
+            } else if (this.startLevel < 100) {
+                sb.append('0');
+            }
+            sb.append(this.startLevel);
+            this.startLevelLength = sb.length() - pos;
+            sb.append('-');
+        } else {
+            this.startLevel = 0;
+            this.startLevelLength = 0;
+        }
+        sb.append(tieBreaker);
+        this.key = sb.toString();
+    }
+
+    private static TaskSortKey getTaskSortKey(final InstallTask task) {
+        if (task instanceof AbstractInstallTask) {
+            return ((AbstractInstallTask) task).getTaskSortKey();
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(final TaskSortKey o) {
+        if (this.phase != o.phase) {
+            return this.phase < o.phase ? -1 : 1;
+        }
+        if (this.hasStartLevel != o.hasStartLevel || this.startLevel != o.startLevel) {
+            // only positive numbers of the same length sort like their string representation
+            if (!this.hasStartLevel
+                    || !o.hasStartLevel
+                    || this.startLevel < 0
+                    || o.startLevel < 0
+                    || this.startLevelLength != o.startLevelLength) {
+                return this.key.compareTo(o.key);
+            }
+            return this.startLevel < o.startLevel ? -1 : 1;
+        }
+        return this.tieBreaker.compareTo(o.tieBreaker);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof TaskSortKey && this.key.equals(((TaskSortKey) obj).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.key.hashCode();
+    }
+
+    /**
+     * The string representation of the key.
+     */
+    @Override
+    public String toString() {
+        return this.key;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceTransformer;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Index of the resource transformers by the resource types and url extensions
+ * they handle, as declared with {@link ResourceTransformer#RESOURCE_TYPES} and
+ * {@link ResourceTransformer#URL_EXTENSIONS}. Transformers without these
+ * properties are candidates for all resources.
+ *
+ * The index is created for a sorted list of transformer references and
+ * returns the candidates in the same order.
+ */
+class TransformerIndex {
+
+    /** A transformer reference together with its filter. */
+    static final class Entry {
+
+        public final ServiceReference<ResourceTransformer> reference;
+
+        public final long id;
+
+        /** The handled resource types or {@code null} for all types. */
+        private final Set<String> types;
+
+        /** The handled url extensions or {@code null} for all urls. */
+        private final String[] extensions;
+
+        Entry(final ServiceReference<ResourceTransformer> reference, final long id) {
+            this.reference = reference;
+            this.id = id;
+            final String[] typeValues = getStrings(reference, ResourceTransformer.RESOURCE_TYPES);
+            this.types = typeValues == null ? null : new HashSet<>(Arrays.asList(typeValues));
+            this.extensions = getStrings(reference, ResourceTransformer.URL_EXTENSIONS);
+        }
+
+        boolean handlesType(final String type) {
+            return this.types == null || this.types.contains(type);
+        }
+
+        boolean handlesUrl(final String url) {
+            if (this.extensions == null) {
+                return true;
+            }
+            for (final String ext : this.extensions) {
+                if (url.endsWith(ext)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Get the values of a string or string array service property.
+     * @return The values or {@code null} if the property is not set or empty.
+     */
+    static String[] getStrings(final ServiceReference<?> reference, final String name) {
+        final Object value = reference.getProperty(name);
+        if (value == null) {
+            return null;
+        }
+        final String[] result = Converters.standardConverter().convert(value).to(String[].class);
+        return result.length == 0 ? null : result;
+    }
+
+    private final List<ServiceReference<ResourceTransformer>> references;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** The candidates by resource type, created on demand. */
+    private final Map<String, List<Entry>> entriesByType = new HashMap<>();
+
+    TransformerIndex(final List<ServiceReference<ResourceTransformer>> references) {
+        this.references = references;
+        for (final ServiceReference<ResourceTransformer> reference : references) {
+            final Long id = (Long) reference.getProperty(Constants.SERVICE_ID);
+            if (id != null) {
+                this.entries.add(new Entry(reference, id));
+            }
+        }
+    }
+
+    /**
+     * Check whether this index has been created for the provided references.
+     */
+    boolean isIndexOf(final List<ServiceReference<ResourceTransformer>> references) {
+        return this.references == references;
+    }
+
+    /**
+     * Get the transformers handling the resource, in the order of the references.
+     */
+    List<Entry> getCandidates(final RegisteredResource resource) {
+        final String type = resource.getType();
+        List<Entry> byType = this.entriesByType.get(type);
+        if (byType == null) {
+            byType = new ArrayList<>();
+            for (final Entry entry : this.entries) {
+                if (entry.handlesType(type)) {
+                    byType.add(entry);
+                }
+            }
+            this.entriesByType.put(type, byType);
+        }
+        List<Entry> result = byType;
+        for (int i = 0; i < byType.size(); i++) {
+            if (!byType.get(i).handlesUrl(resource.getURL())) {
+                // only copy the list if a transformer needs to be skipped
+                result = new ArrayList<>(byType.subList(0, i));
+                for (int j = i + 1; j < byType.size(); j++) {
+                    if (byType.get(j).handlesUrl(resource.getURL())) {
+                        result.add(byType.get(j));
+                    }
+                }
+                break;
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The parsed ids of the invoked transformers, kept as a temporary attribute
+     * together with the persisted value they have been parsed from.
+     */
+    private static final class Invoked {
+
+        final Object source;
+
+        final long[] ids;
+
+        Invoked(final Object source, final long[] ids) {
+            this.source = source;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Check whether a transformer has already been invoked for the resource.
+     */
+    static boolean isInvoked(final RegisteredResourceImpl resource, final long id) {
+        return Arrays.binarySearch(getInvoked(resource), id) >= 0;
+    }
+
+    /**
+     * Remember that a transformer has been invoked for the resource.
+     * The ids are persisted as a string in the form {@code :id:id:}, like
+     * older versions of the installer do.
+     */
+    static void setInvoked(final RegisteredResourceImpl resource, final long id) {
+        final long[] invoked = getInvoked(resource);
+        final int pos = Arrays.binarySearch(invoked, id);
+        if (pos < 0) {
+            final int insert = -pos - 1;
+            final long[] result = new long[invoked.length + 1];
+            System.arraycopy(invoked, 0, result, 0, insert);
+            result[insert] = id;
+            System.arraycopy(invoked, insert, result, insert + 1, invoked.length - insert);
+            final Object old = resource.getAttribute(ResourceTransformer.class.getName());
+            final String value = (old instanceof String ? (String) old : ":") + id + ':';
+            resource.setAttribute(ResourceTransformer.class.getName(), value);
+            resource.setTemporaryAttribute(ResourceTransformer.class.getName(), new Invoked(value, result));
+        }
+    }
+
+    /**
+     * Get the sorted ids of the invoked transformers.
+     * The persisted string is only parsed if it changed since the last call.
+     */
+    private static long[] getInvoked(final RegisteredResourceImpl resource) {
+        final Object value = resource.getAttribute(ResourceTransformer.class.getName());
+        if (!(value instanceof String)) {
+            return new long[0];
+        }
+        final Object cached = resource.getTemporaryAttribute(ResourceTransformer.class.getName());
+        if (cached instanceof Invoked && ((Invoked) cached).source == value) {
+            return ((Invoked) cached).ids;
+        }
+        final List<Long> ids = new ArrayList<>();
+        for (final String part : ((String) value).split(":")) {
+            if (!part.isEmpty()) {
+                try {
+                    ids.add(Long.valueOf(part));
+                } catch (final NumberFormatException ignore) {
+                    // ignore
+                }
+            }
+        }
+        final long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        Arrays.sort(result);
+        resource.setTemporaryAttribute(ResourceTransformer.class.getName(), new Invoked(value, result));
+        return result;
+    }
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.sling.installer.api.UpdateHandler;
 import org.apache.sling.installer.api.info.InfoProvider;
+import org.apache.sling.installer.core.impl.tasks.BundleLocationIndex;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
@@ -40,12 +41,19 @@ import org.osgi.util.converter.Converters;
 public class UpdateHandlerTracker extends SortingServiceTracker<UpdateHandler> {
 
     private final InfoProvider infoProvider;
+    private final BundleLocationIndex locationIndex;
     private final Map<String, AtomicInteger> schemeUseCount;
     private ServiceRegistration<URLStreamHandlerService> urlHandler;
 
-    public UpdateHandlerTracker(BundleContext ctx, InfoProvider infoProvider) {
+    /** The highest ranked handler reference by scheme, rebuilt if the tracked services change. */
+    private volatile Map<String, ServiceReference<UpdateHandler>> handlersByScheme;
+
+    private volatile int lastSchemeCount = -1;
+
+    public UpdateHandlerTracker(BundleContext ctx, InfoProvider infoProvider, BundleLocationIndex locationIndex) {
         super(ctx, UpdateHandler.class.getName(), null);
         this.infoProvider = infoProvider;
+        this.locationIndex = locationIndex;
         this.urlHandler = null; // initialize lazily
         this.schemeUseCount = new HashMap<>();
     }
@@ -63,9 +71,7 @@ public class UpdateHandlerTracker extends SortingServiceTracker<UpdateHandler> {
     }
 
     private void addOrRemoveService(ServiceReference<UpdateHandler> reference, boolean isAdd) {
-        final String[] schemes = Converters.standardConverter()
-                .convert(reference.getProperty(UpdateHandler.PROPERTY_SCHEMES))
-                .to(String[].class);
+        final String[] schemes = getSchemes(reference);
         boolean hasChanged = false;
         for (String scheme : schemes) {
             if (isAdd) {
@@ -83,6 +89,35 @@ public class UpdateHandlerTracker extends SortingServiceTracker<UpdateHandler> {
         }
     }
 
+    private static String[] getSchemes(final ServiceReference<UpdateHandler> reference) {
+        return Converters.standardConverter()
+                .convert(reference.getProperty(UpdateHandler.PROPERTY_SCHEMES))
+                .to(String[].class);
+    }
+
+    /**
+     * Find the highest ranked update handler for a scheme.
+     * @param scheme The scheme
+     * @return The handler or {@code null}
+     */
+    public UpdateHandler getHandler(final String scheme) {
+        Map<String, ServiceReference<UpdateHandler>> handlers = this.handlersByScheme;
+        if (handlers == null || this.lastSchemeCount < this.getTrackingCount()) {
+            this.lastSchemeCount = this.getTrackingCount();
+            handlers = new HashMap<>();
+            for (final ServiceReference<UpdateHandler> ref : this.getSortedServiceReferences()) {
+                for (final String support : getSchemes(ref)) {
+                    if (!handlers.containsKey(support)) {
+                        handlers.put(support, ref);
+                    }
+                }
+            }
+            this.handlersByScheme = handlers;
+        }
+        final ServiceReference<UpdateHandler> ref = handlers.get(scheme);
+        return ref == null ? null : this.getService(ref);
+    }
+
     private synchronized void updateUrlStreamHandler() {
         if (schemeUseCount.isEmpty()) {
             if (urlHandler != null) {
@@ -91,7 +126,7 @@ public class UpdateHandlerTracker extends SortingServiceTracker<UpdateHandler> {
             }
         } else {
             if (urlHandler == null) {
-                InstallerResourceUrlHandler service = new InstallerResourceUrlHandler(infoProvider);
+                InstallerResourceUrlHandler service = new InstallerResourceUrlHandler(infoProvider, locationIndex);
                 Dictionary<String, String[]> properties = new Hashtable<>();
                 properties.put(
                         URLConstants.URL_HANDLER_PROTOCOL,
@@ -18,11 +18,14 @@
  */
 package org.apache.sling.installer.core.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
+import java.util.zip.ZipException;
 
 import org.apache.sling.installer.api.tasks.RegisteredResource;
 import org.osgi.framework.Constants;
@@ -53,9 +56,16 @@ public class Util {
     }
 
     /**
-     * Read the manifest from supplied input stream, which is closed before return.
+     * Read the manifest of the resource.
+     * If the content is in a local data file, the file is opened as an archive.
+     * Otherwise the manifest is read from the input stream of the resource,
+     * which is closed before return.
      */
     private static Manifest getManifest(final RegisteredResource rsrc, final Logger logger) throws IOException {
+        final File dataFile = getLocalDataFile(rsrc);
+        if (dataFile != null) {
+            return getManifest(dataFile);
+        }
         final InputStream ins = rsrc.getInputStream();
 
         Manifest result = null;
@@ -109,6 +119,44 @@ public class Util {
         }
     }
 
+    /**
+     * Get the local data file of the resource, if the content is not served from a resource uri.
+     */
+    private static File getLocalDataFile(final RegisteredResource rsrc) {
+        if (rsrc instanceof RegisteredResourceImpl) {
+            final RegisteredResourceImpl impl = (RegisteredResourceImpl) rsrc;
+            if (impl.getDataURI() == null
+                    && impl.hasDataFile()
+                    && impl.getDataFile().isFile()) {
+                return impl.getDataFile();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the manifest from a local file through the central directory of the archive.
+     * In contrast to reading the archive as a stream, this works regardless of the
+     * position of the manifest within the archive.
+     * @return The manifest or {@code null} if the file is not an archive or has no manifest.
+     */
+    private static Manifest getManifest(final File file) throws IOException {
+        final JarFile jar;
+        try {
+            jar = new JarFile(file, false);
+        } catch (final ZipException notAnArchive) {
+            return null;
+        }
+        try {
+            return jar.getManifest();
+        } finally {
+            try {
+                jar.close();
+            } catch (final IOException ignore) {
+            }
+        }
+    }
+
     /**
      * Read the bundle info from the manifest (if available)
      */
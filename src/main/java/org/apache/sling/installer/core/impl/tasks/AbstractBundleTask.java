@@ -18,11 +18,15 @@
  */
 package org.apache.sling.installer.core.impl.tasks;
 
+import java.util.List;
+
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.tasks.ResourceState;
 import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
 import org.apache.sling.installer.core.impl.AbstractInstallTask;
+import org.osgi.framework.Bundle;
 
 /**
  * Abstract base class for bundle related tasks.
@@ -35,6 +39,47 @@ public abstract class AbstractBundleTask extends AbstractInstallTask {
         super(erl, support);
     }
 
+    /**
+     * Get the index of installed bundles.
+     */
+    protected BundleIndex getBundleIndex() {
+        return this.getTaskSupport().getBundleIndex();
+    }
+
+    /**
+     * Get the cache of bundle header metadata.
+     */
+    protected BundleHeaderCache getBundleHeaders() {
+        return this.getTaskSupport().getBundleHeaderCache();
+    }
+
+    /**
+     * Find the host bundle for a fragment host header.
+     * @return The bundle or {@code null}
+     */
+    protected Bundle getFragmentHost(final String fragmentHostHeader) {
+        final List<Bundle> hosts = this.getBundleIndex().getBundles(fragmentHostHeader);
+        return hosts.isEmpty() ? null : hosts.get(0);
+    }
+
+    /**
+     * Index the location of the resource once it is installed,
+     * drop it from the index once it is uninstalled.
+     */
+    @Override
+    public void setFinishedState(final ResourceState state, final String alias, final String error) {
+        // the group has no active resource anymore once the state is set
+        final TaskResource resource = this.getResource();
+        super.setFinishedState(state, alias, error);
+        if (resource != null && this.getTaskSupport() != null) {
+            if (state == ResourceState.INSTALLED) {
+                this.getTaskSupport().getBundleLocationIndex().add(resource);
+            } else if (state == ResourceState.UNINSTALLED) {
+                this.getTaskSupport().getBundleLocationIndex().remove(resource);
+            }
+        }
+    }
+
     public static void setBundleLocation(TaskResource resource, String location) {
         resource.setAttribute(ATTRIBUTE_BUNDLE_LOCATION, location);
     }
@@ -72,19 +117,4 @@ public abstract class AbstractBundleTask extends AbstractInstallTask {
         }
         return startLevel;
     }
-
-    /**
-     * Get sortable start level - low levels before high levels
-     */
-    protected String getSortableStartLevel() {
-        final int startLevel = this.getBundleStartLevel();
-        if (startLevel == 0) {
-            return "999";
-        } else if (startLevel < 10) {
-            return "00" + String.valueOf(startLevel);
-        } else if (startLevel < 100) {
-            return "0" + String.valueOf(startLevel);
-        }
-        return String.valueOf(startLevel);
-    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Arrays;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Tracks the ids of the active, non fragment bundles (excluding the system bundle).
+ *
+ * The framework is scanned once on first use, afterwards the ids are
+ * maintained through bundle events. The ids are kept as a sorted
+ * primitive array which is only copied if the set of active bundles changes.
+ */
+public class ActiveBundleTracker implements SynchronousBundleListener {
+
+    private static final long[] EMPTY = new long[0];
+
+    /** The bundle context. */
+    private final BundleContext bundleContext;
+
+    /** Sorted ids of the active bundles, never modified in place. */
+    private long[] ids = EMPTY;
+
+    /** Has the framework been scanned? */
+    private boolean initialized = false;
+
+    public ActiveBundleTracker(final BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    /**
+     * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+     */
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        final int t = event.getType();
+        if (t == BundleEvent.STARTED || t == BundleEvent.STOPPED || t == BundleEvent.UNINSTALLED) {
+            final long id = event.getBundle().getBundleId();
+            synchronized (this) {
+                if (this.initialized && id > 0) {
+                    if (t == BundleEvent.STARTED) {
+                        this.ids = add(this.ids, id);
+                    } else {
+                        this.ids = remove(this.ids, id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the ids of the active bundles.
+     * The returned array is shared and must not be modified.
+     * @return The sorted ids, might be empty.
+     */
+    public synchronized long[] getActiveBundleIds() {
+        if (!this.initialized) {
+            this.initialized = true;
+            final Bundle[] bundles = this.bundleContext.getBundles();
+            if (bundles != null) {
+                final long[] result = new long[bundles.length];
+                int count = 0;
+                for (final Bundle bundle : bundles) {
+                    if (bundle.getBundleId() > 0
+                            && BundleUtil.getFragmentHostHeader(bundle) == null
+                            && bundle.getState() == Bundle.ACTIVE) {
+                        result[count++] = bundle.getBundleId();
+                    }
+                }
+                this.ids = Arrays.copyOf(result, count);
+                Arrays.sort(this.ids);
+            }
+        }
+        return this.ids;
+    }
+
+    /**
+     * Add an id to a sorted array.
+     * @return The same array if the id is already contained, a new array otherwise.
+     */
+    static long[] add(final long[] ids, final long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        index = -index - 1;
+        final long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        result[index] = id;
+        System.arraycopy(ids, index, result, index + 1, ids.length - index);
+        return result;
+    }
+
+    /**
+     * Remove an id from a sorted array.
+     * @return The same array if the id is not contained, a new array otherwise.
+     */
+    static long[] remove(final long[] ids, final long id) {
+        final int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        final long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Merge two sorted arrays.
+     * @return One of the arrays if the other one is empty, a new array otherwise.
+     */
+    static long[] merge(final long[] a, final long[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        final long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            final long next;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (count == 0 || result[count - 1] != next) {
+                result[count++] = next;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
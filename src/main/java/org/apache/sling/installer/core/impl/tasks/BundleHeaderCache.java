@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Dictionary;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Cache of the header metadata of the installed bundles, keyed by bundle id.
+ *
+ * Reading the headers of a bundle creates a new dictionary on each call,
+ * therefore the few values the tasks need are kept per bundle. An entry is
+ * dropped as soon as the bundle is updated or uninstalled, a synchronous
+ * listener is used so that a task never sees the headers of a previous
+ * revision.
+ */
+public class BundleHeaderCache implements SynchronousBundleListener {
+
+    /** The header metadata of a bundle revision. */
+    private static final class HeaderInfo {
+
+        public final String fragmentHost;
+
+        public final boolean lazyActivation;
+
+        public final boolean extension;
+
+        public HeaderInfo(final Bundle b) {
+            final Dictionary<String, String> headers = b.getHeaders("");
+            this.fragmentHost = headers.get(Constants.FRAGMENT_HOST);
+            this.lazyActivation = Constants.ACTIVATION_LAZY.equals(headers.get(Constants.BUNDLE_ACTIVATIONPOLICY));
+            this.extension = this.fragmentHost != null && this.fragmentHost.indexOf(Constants.EXTENSION_DIRECTIVE) > 0;
+        }
+    }
+
+    /** Header metadata by bundle id. */
+    private final Map<Long, HeaderInfo> headers = new ConcurrentHashMap<>();
+
+    /**
+     * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+     */
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        final int t = event.getType();
+        if (t == BundleEvent.UPDATED || t == BundleEvent.UNINSTALLED) {
+            this.headers.remove(event.getBundle().getBundleId());
+        }
+    }
+
+    private HeaderInfo getHeaderInfo(final Bundle b) {
+        HeaderInfo info = this.headers.get(b.getBundleId());
+        if (info == null) {
+            info = new HeaderInfo(b);
+            this.headers.put(b.getBundleId(), info);
+        }
+        return info;
+    }
+
+    /**
+     * Check if the bundle is an extension fragment of the system bundle.
+     */
+    public boolean isSystemBundleFragment(final Bundle installedBundle) {
+        return getHeaderInfo(installedBundle).extension;
+    }
+
+    /**
+     * Check if the bundle is active.
+     * This is true if the bundle has the active state or of the bundle
+     * is in the starting state and has the lazy activation policy.
+     * Or if the bundle is a fragment, it's considered active as well
+     */
+    public boolean isBundleActive(final Bundle b) {
+        if (b.getState() == Bundle.ACTIVE) {
+            return true;
+        }
+        if (b.getState() == Bundle.STARTING && isLazyActivatian(b)) {
+            return true;
+        }
+        return (getFragmentHostHeader(b) != null);
+    }
+
+    /**
+     * Gets the bundle's Fragment-Host header.
+     */
+    public String getFragmentHostHeader(final Bundle b) {
+        return getHeaderInfo(b).fragmentHost;
+    }
+
+    /**
+     * Check if the bundle has the lazy activation policy
+     */
+    public boolean isLazyActivatian(final Bundle b) {
+        return getHeaderInfo(b).lazyActivation;
+    }
+}
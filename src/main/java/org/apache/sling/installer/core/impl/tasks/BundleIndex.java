@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.SynchronousBundleListener;
+import org.osgi.framework.Version;
+
+/**
+ * Index of the installed bundles by symbolic name.
+ * The bundles for a symbolic name are sorted by version, highest version first.
+ *
+ * The index is built from the bundle context on first use and afterwards
+ * kept up to date through bundle events. A synchronous listener is used
+ * so that a bundle installed by a task is visible to the very next lookup.
+ */
+public class BundleIndex implements SynchronousBundleListener {
+
+    /** Highest version first, bundle id as tie breaker. */
+    private static final Comparator<Bundle> COMPARATOR = new Comparator<Bundle>() {
+
+        @Override
+        public int compare(final Bundle o1, final Bundle o2) {
+            int result = o2.getVersion().compareTo(o1.getVersion());
+            if (result == 0) {
+                result = Long.compare(o1.getBundleId(), o2.getBundleId());
+            }
+            return result;
+        }
+    };
+
+    /** The bundle context. */
+    private final BundleContext bundleContext;
+
+    /** Bundles by symbolic name. */
+    private final Map<String, List<Bundle>> bundlesBySymbolicName = new HashMap<>();
+
+    /** Symbolic names by bundle id, required as the symbolic name might change on update. */
+    private final Map<Long, String> symbolicNamesById = new HashMap<>();
+
+    /** Has the index been built? */
+    private boolean initialized = false;
+
+    public BundleIndex(final BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    /**
+     * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+     */
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        final int t = event.getType();
+        if (t == BundleEvent.INSTALLED || t == BundleEvent.UPDATED || t == BundleEvent.UNINSTALLED) {
+            synchronized (this) {
+                if (this.initialized) {
+                    this.remove(event.getBundle().getBundleId());
+                    if (t != BundleEvent.UNINSTALLED) {
+                        this.add(event.getBundle());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the bundle with given symbolic name.
+     * If no version is provided, the bundle with the highest version is returned,
+     * otherwise the bundle with exactly this version.
+     */
+    public Bundle getMatchingBundle(final String bundleSymbolicName, final String version) {
+        if (bundleSymbolicName != null) {
+            // check if this is the system bundle
+            if (Constants.SYSTEM_BUNDLE_SYMBOLICNAME.equals(bundleSymbolicName)) {
+                return bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION);
+            }
+            final List<Bundle> matchingBundles = this.getBundles(bundleSymbolicName);
+            if (!matchingBundles.isEmpty()) {
+                if (version == null) {
+                    return matchingBundles.get(0);
+                }
+                final Version searchVersion = new Version(version);
+                for (final Bundle current : matchingBundles) {
+                    if (searchVersion.compareTo(current.getVersion()) == 0) {
+                        return current;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return all bundles with the given symbolic name, highest version first.
+     * @return A list of bundles, might be empty
+     */
+    public synchronized List<Bundle> getBundles(final String bundleSymbolicName) {
+        if (!this.initialized) {
+            this.initialized = true;
+            final Bundle[] bundles = this.bundleContext.getBundles();
+            if (bundles != null) {
+                for (final Bundle b : bundles) {
+                    this.add(b);
+                }
+            }
+        }
+        final List<Bundle> list = this.bundlesBySymbolicName.get(bundleSymbolicName);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(list);
+    }
+
+    private void add(final Bundle b) {
+        final String symbolicName = b.getSymbolicName();
+        if (symbolicName != null) {
+            List<Bundle> list = this.bundlesBySymbolicName.get(symbolicName);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                this.bundlesBySymbolicName.put(symbolicName, list);
+            }
+            int index = Collections.binarySearch(list, b, COMPARATOR);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            list.add(index, b);
+            this.symbolicNamesById.put(b.getBundleId(), symbolicName);
+        }
+    }
+
+    private void remove(final long bundleId) {
+        final String symbolicName = this.symbolicNamesById.remove(bundleId);
+        if (symbolicName != null) {
+            final List<Bundle> list = this.bundlesBySymbolicName.get(symbolicName);
+            if (list != null) {
+                for (int i = 0; i < list.size(); i++) {
+                    if (list.get(i).getBundleId() == bundleId) {
+                        list.remove(i);
+                        break;
+                    }
+                }
+                if (list.isEmpty()) {
+                    this.bundlesBySymbolicName.remove(symbolicName);
+                }
+            }
+        }
+    }
+}
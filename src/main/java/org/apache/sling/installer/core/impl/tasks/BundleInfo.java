@@ -18,12 +18,7 @@
  */
 package org.apache.sling.installer.core.impl.tasks;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleContext;
-import org.osgi.framework.Constants;
 import org.osgi.framework.Version;
 
 /**
@@ -54,60 +49,19 @@ public class BundleInfo {
     }
 
     public static BundleInfo getBundleInfo(
-            final BundleContext bundleContext, final String symbolicName, final String version) {
-        final Bundle b = getMatchingBundle(bundleContext, symbolicName, version);
+            final BundleIndex bundleIndex, final String symbolicName, final String version) {
+        final Bundle b = bundleIndex.getMatchingBundle(symbolicName, version);
         if (b == null) {
             return null;
         }
         return new BundleInfo(b);
     }
 
-    /**
-     * Finds the bundle with given symbolic name in our bundle context.
-     */
-    public static Bundle getMatchingBundle(
-            final BundleContext bundleContext, final String bundleSymbolicName, final String version) {
-        Bundle match = null;
-        if (bundleSymbolicName != null) {
-            // check if this is the system bundle
-            if (Constants.SYSTEM_BUNDLE_SYMBOLICNAME.equals(bundleSymbolicName)) {
-                return bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION);
-            }
-            final List<Bundle> matchingBundles = new ArrayList<Bundle>();
-            final Bundle[] bundles = bundleContext.getBundles();
-            for (Bundle bundle : bundles) {
-                if (bundleSymbolicName.equals(bundle.getSymbolicName())) {
-                    matchingBundles.add(bundle);
-                }
-            }
-            if (matchingBundles.size() > 0) {
-                final Version searchVersion = (version == null ? null : new Version(version));
-                if (searchVersion == null
-                        || searchVersion.compareTo(matchingBundles.get(0).getVersion()) == 0) {
-                    match = matchingBundles.get(0);
-                }
-                for (int i = 1; i < matchingBundles.size(); i++) {
-                    final Bundle current = matchingBundles.get(i);
-                    if (searchVersion == null) {
-                        if (match.getVersion().compareTo(current.getVersion()) < 0) {
-                            match = current;
-                        }
-                    } else {
-                        if (searchVersion.compareTo(current.getVersion()) == 0) {
-                            match = current;
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-        return match;
-    }
-
     /**
      * Check if the version is a snapshot version
      */
     public static boolean isSnapshot(final Version v) {
-        return v.toString().indexOf(MAVEN_SNAPSHOT_MARKER) >= 0;
+        // the marker can only be part of the qualifier
+        return v.getQualifier().indexOf(MAVEN_SNAPSHOT_MARKER) >= 0;
     }
 }
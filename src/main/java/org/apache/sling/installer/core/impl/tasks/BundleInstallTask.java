@@ -21,6 +21,7 @@ package org.apache.sling.installer.core.impl.tasks;
 import org.apache.sling.installer.api.tasks.InstallationContext;
 import org.apache.sling.installer.api.tasks.ResourceState;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
+import org.apache.sling.installer.core.impl.TaskSortKey;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.startlevel.BundleStartLevel;
 
@@ -30,10 +31,14 @@ import org.osgi.framework.startlevel.BundleStartLevel;
  */
 public class BundleInstallTask extends AbstractBundleTask {
 
-    private static final String BUNDLE_INSTALL_ORDER = "40-";
+    private static final int BUNDLE_INSTALL_ORDER = 40;
+
+    private final TaskSortKey sortKey;
 
     public BundleInstallTask(final TaskResourceGroup r, final TaskSupport creator) {
         super(r, creator);
+        this.sortKey = new TaskSortKey(
+                BUNDLE_INSTALL_ORDER, this.getBundleStartLevel(), getResource().getURL());
     }
 
     /**
@@ -55,20 +60,18 @@ public class BundleInstallTask extends AbstractBundleTask {
             }
 
             // fragment?
-            if (BundleUtil.isSystemBundleFragment(b)) {
+            if (this.getBundleHeaders().isSystemBundleFragment(b)) {
                 // first install of a system fragment does not need a refresh of the host
                 // so we can just set the state and are done.
                 this.setFinishedState(ResourceState.INSTALLED);
             } else {
-                final String fragmentHostHeader = BundleUtil.getFragmentHostHeader(b);
+                final String fragmentHostHeader = this.getBundleHeaders().getFragmentHostHeader(b);
                 if (fragmentHostHeader != null) {
                     this.getLogger().debug("Need to do a refresh of the bundle's {} host", b);
-                    for (final Bundle bundle : this.getBundleContext().getBundles()) {
-                        if (fragmentHostHeader.equals(bundle.getSymbolicName())) {
-                            this.getLogger().debug("Found host bundle for {} to refresh: {}", b, bundle);
-                            RefreshBundlesTask.markBundleForRefresh(ctx, this.getTaskSupport(), bundle);
-                            break;
-                        }
+                    final Bundle host = this.getFragmentHost(fragmentHostHeader);
+                    if (host != null) {
+                        this.getLogger().debug("Found host bundle for {} to refresh: {}", b, host);
+                        RefreshBundlesTask.markBundleForRefresh(ctx, this.getTaskSupport(), host);
                     }
 
                     this.setFinishedState(ResourceState.INSTALLED);
@@ -92,7 +95,11 @@ public class BundleInstallTask extends AbstractBundleTask {
 
     @Override
     public String getSortKey() {
-        return BUNDLE_INSTALL_ORDER + getSortableStartLevel() + "-"
-                + getResource().getURL();
+        return this.sortKey.toString();
+    }
+
+    @Override
+    public TaskSortKey getTaskSortKey() {
+        return this.sortKey;
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Index of the installed bundle resources by bundle location.
+ *
+ * A resource is added once it is installed and removed once it is about
+ * to be uninstalled, is uninstalled or its bundle is uninstalled. As
+ * resources change their state and location without notifying the index,
+ * each lookup verifies the found resource.
+ */
+public class BundleLocationIndex implements SynchronousBundleListener {
+
+    /** Resources by bundle location. */
+    private final Map<String, TaskResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+     */
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        if (event.getType() == BundleEvent.UNINSTALLED) {
+            final String location = event.getBundle().getLocation();
+            if (location != null) {
+                this.resources.remove(location);
+            }
+        }
+    }
+
+    /**
+     * Add a resource to the index if it is installed and has a bundle location.
+     */
+    public void add(final TaskResource resource) {
+        final String location = getLocation(resource);
+        if (location != null && resource.getState() == ResourceState.INSTALLED) {
+            this.resources.put(location, resource);
+        }
+    }
+
+    /**
+     * Remove a resource from the index.
+     */
+    public void remove(final TaskResource resource) {
+        final String location = getLocation(resource);
+        if (location != null) {
+            this.resources.remove(location, resource);
+        }
+    }
+
+    /**
+     * Get the installed resource for a bundle location.
+     * @return The resource or {@code null} if there is no installed resource for the location.
+     */
+    public TaskResource getInstalledResource(final String location) {
+        final TaskResource resource = this.resources.get(location);
+        if (resource != null) {
+            if (resource.getState() == ResourceState.INSTALLED && location.equals(getLocation(resource))) {
+                return resource;
+            }
+            this.resources.remove(location, resource);
+        }
+        return null;
+    }
+
+    /**
+     * Number of indexed locations.
+     */
+    public int size() {
+        return this.resources.size();
+    }
+
+    private static String getLocation(final TaskResource resource) {
+        return (String) resource.getAttribute(AbstractBundleTask.ATTRIBUTE_BUNDLE_LOCATION);
+    }
+}
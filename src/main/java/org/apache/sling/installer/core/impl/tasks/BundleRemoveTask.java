@@ -43,7 +43,7 @@ public class BundleRemoveTask extends AbstractBundleTask {
     public void execute(InstallationContext ctx) {
         final String symbolicName = (String) getResource().getAttribute(Constants.BUNDLE_SYMBOLICNAME);
         final String version = (String) getResource().getAttribute(Constants.BUNDLE_VERSION);
-        final Bundle b = BundleInfo.getMatchingBundle(this.getBundleContext(), symbolicName, version);
+        final Bundle b = this.getBundleIndex().getMatchingBundle(symbolicName, version);
         if (b == null) {
             // nothing to do, so just stop
             this.setFinishedState(ResourceState.UNINSTALLED);
@@ -57,7 +57,7 @@ public class BundleRemoveTask extends AbstractBundleTask {
             b.uninstall();
             ctx.log("Uninstalled bundle {} from resource {}", b, getResource());
             // if the bundle exported packages, we need to refresh
-            if (BundleUtil.getFragmentHostHeader(b) == null) {
+            if (this.getBundleHeaders().getFragmentHostHeader(b) == null) {
                 RefreshBundlesTask.markBundleForRefresh(ctx, this.getTaskSupport(), b);
             }
             this.setFinishedState(ResourceState.UNINSTALLED);
@@ -87,7 +87,7 @@ public class BundleStartTask extends AbstractBundleTask {
             return;
         }
 
-        if (BundleUtil.isBundleActive(b)) {
+        if (this.getBundleHeaders().isBundleActive(b)) {
             String message = MessageFormat.format("Bundle already started, no action taken: {0}", bundleId);
             this.getLogger().debug(message);
             this.setFinishedState(ResourceState.INSTALLED, null, message);
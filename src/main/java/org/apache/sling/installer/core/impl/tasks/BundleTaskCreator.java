@@ -84,10 +84,14 @@ public class BundleTaskCreator implements InternalService, InstallTaskFactory, F
         this.retryHandler = retryHandler;
 
         this.isMultiVersion = OsgiInstallerImpl.isMultiVersionSupportEnabled(bc);
+        this.taskSupport = new TaskSupport(bc);
+        this.bundleContext.addBundleListener(this.taskSupport.getBundleIndex());
+        this.bundleContext.addBundleListener(this.taskSupport.getActiveBundleTracker());
+        this.bundleContext.addBundleListener(this.taskSupport.getBundleHeaderCache());
+        this.bundleContext.addBundleListener(this.taskSupport.getBundleLocationIndex());
         this.bundleContext.addBundleListener(this);
         this.bundleContext.addFrameworkListener(this);
 
-        this.taskSupport = new TaskSupport(bc);
         this.bundleBlacklist = new BundleBlackList(bc);
     }
 
@@ -99,12 +103,27 @@ public class BundleTaskCreator implements InternalService, InstallTaskFactory, F
         if (this.bundleContext != null) {
             this.bundleContext.removeBundleListener(this);
             this.bundleContext.removeFrameworkListener(this);
+            if (this.taskSupport != null) {
+                this.bundleContext.removeBundleListener(this.taskSupport.getBundleIndex());
+                this.bundleContext.removeBundleListener(this.taskSupport.getActiveBundleTracker());
+                this.bundleContext.removeBundleListener(this.taskSupport.getBundleHeaderCache());
+                this.bundleContext.removeBundleListener(this.taskSupport.getBundleLocationIndex());
+            }
         }
         if (this.taskSupport != null) {
             this.taskSupport = null;
         }
     }
 
+    /**
+     * Get the index of the installed bundle resources by location.
+     * @return The index or {@code null} if this service is not initialized
+     */
+    public BundleLocationIndex getBundleLocationIndex() {
+        final TaskSupport support = this.taskSupport;
+        return support == null ? null : support.getBundleLocationIndex();
+    }
+
     /**
      * @see org.osgi.framework.FrameworkListener#frameworkEvent(org.osgi.framework.FrameworkEvent)
      */
@@ -178,6 +197,8 @@ public class BundleTaskCreator implements InternalService, InstallTaskFactory, F
         // Uninstall
         final InstallTask result;
         if (toActivate.getState() == ResourceState.UNINSTALL) {
+            // the resource has been removed, it no longer provides the bundle content
+            this.taskSupport.getBundleLocationIndex().remove(toActivate);
             // find the info with the exact version
             final BundleInfo info =
                     this.getBundleInfo(symbolicName, (String) toActivate.getAttribute(Constants.BUNDLE_VERSION));
@@ -327,7 +348,7 @@ public class BundleTaskCreator implements InternalService, InstallTaskFactory, F
     }
 
     protected BundleInfo getBundleInfo(final String symbolicName, final String version) {
-        return BundleInfo.getBundleInfo(this.bundleContext, symbolicName, version);
+        return BundleInfo.getBundleInfo(this.taskSupport.getBundleIndex(), symbolicName, version);
     }
 
     /**
@@ -23,6 +23,7 @@ import java.text.MessageFormat;
 import org.apache.sling.installer.api.tasks.InstallationContext;
 import org.apache.sling.installer.api.tasks.ResourceState;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
+import org.apache.sling.installer.core.impl.TaskSortKey;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Version;
@@ -34,15 +35,19 @@ import org.osgi.framework.startlevel.BundleStartLevel;
  */
 public class BundleUpdateTask extends AbstractBundleTask {
 
-    private static final String BUNDLE_UPDATE_ORDER = "50-";
+    private static final int BUNDLE_UPDATE_ORDER = 50;
 
     private static final int MAX_RETRIES = 5;
 
+    private final TaskSortKey sortKey;
+
     // keep track of retry attempts via temporary attribute stored in taskresource
     private String ATTR_UPDATE_RETRY = "org.apache.sling.installer.core.impl.tasks.BundleUpdateTask.retrycount";
 
     public BundleUpdateTask(final TaskResourceGroup r, final TaskSupport creator) {
         super(r, creator);
+        this.sortKey = new TaskSortKey(
+                BUNDLE_UPDATE_ORDER, this.getBundleStartLevel(), getResource().getEntityId());
     }
 
     /**
@@ -52,7 +57,7 @@ public class BundleUpdateTask extends AbstractBundleTask {
      * Or if the bundle is a fragment, it's considered active as well
      */
     private boolean isBundleActive(final Bundle b) {
-        if (BundleUtil.isBundleActive(b)) {
+        if (this.getBundleHeaders().isBundleActive(b)) {
             return true;
         }
         final BundleStartLevel startLevelService = b.adapt(BundleStartLevel.class);
@@ -65,7 +70,7 @@ public class BundleUpdateTask extends AbstractBundleTask {
     @Override
     public void execute(final InstallationContext ctx) {
         final String symbolicName = (String) getResource().getAttribute(Constants.BUNDLE_SYMBOLICNAME);
-        final Bundle b = BundleInfo.getMatchingBundle(this.getBundleContext(), symbolicName, null);
+        final Bundle b = this.getBundleIndex().getMatchingBundle(symbolicName, null);
         if (b == null) {
             String message = MessageFormat.format("Bundle to update ({0}) not found", symbolicName);
             this.getLogger().debug(message);
@@ -114,19 +119,17 @@ public class BundleUpdateTask extends AbstractBundleTask {
             }
 
             if (reactivate) {
-                if (BundleUtil.isSystemBundleFragment(b)) {
+                if (this.getBundleHeaders().isSystemBundleFragment(b)) {
                     this.setFinishedState(ResourceState.INSTALLED);
                     ctx.addTaskToCurrentCycle(new SystemBundleUpdateTask(null, this.getTaskSupport()));
-                } else if (BundleUtil.getFragmentHostHeader(b) != null) {
+                } else if (this.getBundleHeaders().getFragmentHostHeader(b) != null) {
                     // if this is a fragment, we're done after a refresh of the host
-                    final String fragmentHostHeader = BundleUtil.getFragmentHostHeader(b);
+                    final String fragmentHostHeader = this.getBundleHeaders().getFragmentHostHeader(b);
                     this.getLogger().debug("Need to do a refresh of the bundle's {} host", b);
-                    for (final Bundle bundle : this.getBundleContext().getBundles()) {
-                        if (fragmentHostHeader.equals(bundle.getSymbolicName())) {
-                            this.getLogger().debug("Found host bundle for {} to refresh: {}", b, bundle);
-                            RefreshBundlesTask.markBundleForRefresh(ctx, this.getTaskSupport(), bundle);
-                            break;
-                        }
+                    final Bundle host = this.getFragmentHost(fragmentHostHeader);
+                    if (host != null) {
+                        this.getLogger().debug("Found host bundle for {} to refresh: {}", b, host);
+                        RefreshBundlesTask.markBundleForRefresh(ctx, this.getTaskSupport(), host);
                     }
                     this.setFinishedState(ResourceState.INSTALLED);
                 } else {
@@ -162,12 +165,16 @@ public class BundleUpdateTask extends AbstractBundleTask {
 
     @Override
     public String getSortKey() {
-        return BUNDLE_UPDATE_ORDER + getSortableStartLevel() + "-"
-                + getResource().getEntityId();
+        return this.sortKey.toString();
+    }
+
+    @Override
+    public TaskSortKey getTaskSortKey() {
+        return this.sortKey;
     }
 
     public Bundle getBundle() {
         final String symbolicName = (String) getResource().getAttribute(Constants.BUNDLE_SYMBOLICNAME);
-        return BundleInfo.getMatchingBundle(this.getBundleContext(), symbolicName, null);
+        return this.getBundleIndex().getMatchingBundle(symbolicName, null);
     }
 }
@@ -38,38 +38,11 @@ public abstract class BundleUtil {
         rsrc.setAttribute(ATTR_START, null);
     }
 
-    public static boolean isSystemBundleFragment(final Bundle installedBundle) {
-        final String fragmentHeader = getFragmentHostHeader(installedBundle);
-        return fragmentHeader != null && fragmentHeader.indexOf(Constants.EXTENSION_DIRECTIVE) > 0;
-    }
-
-    /**
-     * Check if the bundle is active.
-     * This is true if the bundle has the active state or of the bundle
-     * is in the starting state and has the lazy activation policy.
-     * Or if the bundle is a fragment, it's considered active as well
-     */
-    public static boolean isBundleActive(final Bundle b) {
-        if (b.getState() == Bundle.ACTIVE) {
-            return true;
-        }
-        if (b.getState() == Bundle.STARTING && isLazyActivatian(b)) {
-            return true;
-        }
-        return (getFragmentHostHeader(b) != null);
-    }
-
     /**
      * Gets the bundle's Fragment-Host header.
+     * Tasks use {@link BundleHeaderCache#getFragmentHostHeader(Bundle)} instead.
      */
     public static String getFragmentHostHeader(final Bundle b) {
         return (String) b.getHeaders("").get(Constants.FRAGMENT_HOST);
     }
-
-    /**
-     * Check if the bundle has the lazy activation policy
-     */
-    public static boolean isLazyActivatian(final Bundle b) {
-        return Constants.ACTIVATION_LAZY.equals(b.getHeaders("").get(Constants.BUNDLE_ACTIVATIONPOLICY));
-    }
 }
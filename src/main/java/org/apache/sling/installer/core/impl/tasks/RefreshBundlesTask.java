@@ -19,6 +19,7 @@
 package org.apache.sling.installer.core.impl.tasks;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -62,7 +63,7 @@ public class RefreshBundlesTask extends AbstractBundleTask {
      */
     @Override
     public void execute(final InstallationContext ctx) {
-        boolean doFullRefresh = false;
+        boolean hasRemovedBundles = false;
         final List<Bundle> bundles = new ArrayList<Bundle>();
         synchronized (BUNDLE_IDS) {
             for (final Long id : BUNDLE_IDS) {
@@ -71,21 +72,41 @@ public class RefreshBundlesTask extends AbstractBundleTask {
                     getLogger().debug("Will refresh bundle {}", b);
                     bundles.add(b);
                 } else {
-                    getLogger().debug("Bundle {} is already gone. Full refresh", id);
-                    doFullRefresh = true;
+                    getLogger().debug("Bundle {} is already gone. Adding removal pending bundles", id);
+                    hasRemovedBundles = true;
                 }
             }
             BUNDLE_IDS.clear();
         }
-        if (doFullRefresh || bundles.size() > 0) {
+        if (hasRemovedBundles) {
+            // uninstalled bundles can't be passed to the framework anymore, but the framework
+            // still knows about them as long as other bundles are wired to them. Refreshing
+            // these together with the remaining bundles covers the same dependency closure
+            // as a full refresh without touching unrelated bundles.
+            final Collection<Bundle> pending = this.getBundleRefresher().getRemovalPendingBundles();
+            if (pending != null) {
+                final Set<Long> ids = new HashSet<Long>();
+                for (final Bundle b : bundles) {
+                    ids.add(b.getBundleId());
+                }
+                for (final Bundle b : pending) {
+                    if (ids.add(b.getBundleId())) {
+                        getLogger().debug("Will refresh removal pending bundle {}", b);
+                        bundles.add(b);
+                    }
+                }
+            }
+        }
+        if (bundles.size() > 0) {
             // check if the installer bundle is affected
             if (!this.getBundleRefresher().isInstallerBundleAffected(bundles)) {
-                this.getBundleRefresher().refreshBundles(ctx, (doFullRefresh ? null : bundles), true);
+                this.getBundleRefresher().refreshBundles(ctx, bundles, true);
             } else {
                 ctx.log("Installer bundle is affected by bundle refresh, initiating asynchronous refresh");
-                ctx.addTaskToCurrentCycle(
-                        new AsyncRefreshBundlesTask(this.getTaskSupport(), (doFullRefresh ? null : bundles)));
+                ctx.addTaskToCurrentCycle(new AsyncRefreshBundlesTask(this.getTaskSupport(), bundles));
             }
+        } else if (hasRemovedBundles) {
+            getLogger().debug("Removed bundles are not wired to any other bundle, no refresh required");
         }
     }
 
@@ -18,10 +18,13 @@
  */
 package org.apache.sling.installer.core.impl.tasks;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
 import org.apache.sling.installer.core.impl.AbstractInstallTask;
 import org.apache.sling.installer.core.impl.PersistentResourceList;
@@ -38,35 +41,88 @@ public class RestartActiveBundlesTask extends AbstractInstallTask {
 
     private static final String ATTR = "bundles";
 
+    /**
+     * The sorted ids, kept as a temporary attribute together with the
+     * persisted set they have been read from.
+     */
+    private static final class Ids {
+
+        final Object source;
+
+        final long[] ids;
+
+        Ids(final Object source, final long[] ids) {
+            this.source = source;
+            this.ids = ids;
+        }
+    }
+
     /**
      * Constructor
      */
     public RestartActiveBundlesTask(final TaskResourceGroup erl, final TaskSupport support) {
         super(erl, support);
-        // calculate bundle set
-        @SuppressWarnings("unchecked")
-        Set<Long> ids = (Set<Long>) erl.getActiveResource().getAttribute(ATTR);
-        if (ids == null) {
-            ids = new HashSet<Long>();
+        // add the currently active bundles to the ids left over from the last run
+        final TaskResource resource = erl.getActiveResource();
+        final long[] current = getIds(resource);
+        final long[] ids = ActiveBundleTracker.merge(
+                current, support.getActiveBundleTracker().getActiveBundleIds());
+        if (ids.length != current.length) {
+            setIds(resource, ids);
+        }
+    }
+
+    /**
+     * Get the sorted bundle ids of the resource.
+     * The persisted set is only read if it changed since the last call.
+     */
+    private static long[] getIds(final TaskResource resource) {
+        final Object value = resource.getAttribute(ATTR);
+        if (!(value instanceof Collection)) {
+            return new long[0];
+        }
+        final Object cached = resource.getTemporaryAttribute(ATTR);
+        if (cached instanceof Ids && ((Ids) cached).source == value) {
+            return ((Ids) cached).ids;
+        }
+        final Collection<?> c = (Collection<?>) value;
+        final long[] ids = new long[c.size()];
+        int count = 0;
+        for (final Object id : c) {
+            ids[count++] = ((Long) id).longValue();
         }
-        for (final Bundle bundle : support.getBundleContext().getBundles()) {
-            if (bundle.getBundleId() > 0
-                    && BundleUtil.getFragmentHostHeader(bundle) == null
-                    && bundle.getState() == Bundle.ACTIVE) {
-                ids.add(bundle.getBundleId());
+        Arrays.sort(ids);
+        resource.setTemporaryAttribute(ATTR, new Ids(value, ids));
+        return ids;
+    }
+
+    /**
+     * Set the bundle ids of the resource.
+     * The ids are persisted as a set of longs, like older versions of the installer do.
+     */
+    private static void setIds(final TaskResource resource, final long[] ids) {
+        if (ids.length == 0) {
+            resource.setAttribute(ATTR, null);
+            resource.setTemporaryAttribute(ATTR, null);
+        } else {
+            final Set<Long> value = new HashSet<>();
+            for (final long id : ids) {
+                value.add(id);
             }
+            resource.setAttribute(ATTR, value);
+            resource.setTemporaryAttribute(ATTR, new Ids(value, ids));
         }
-        erl.getActiveResource().setAttribute(ATTR, ids);
     }
 
     @Override
     public void execute(final InstallationContext ctx) {
-        @SuppressWarnings("unchecked")
-        final Set<Long> ids = (Set<Long>) this.getResource().getAttribute(ATTR);
+        final long[] ids = getIds(this.getResource());
         int started = 0;
-        if (ids != null) {
-            final Set<Long> remove = new HashSet<Long>();
-            for (final Long id : ids) {
+        if (ids.length > 0) {
+            // ids of bundles which could not be started yet
+            final long[] keep = new long[ids.length];
+            int keepCount = 0;
+            for (final long id : ids) {
                 final Bundle bundle = this.getBundleContext().getBundle(id);
                 if (bundle != null
                         && bundle.getState() != Bundle.ACTIVE
@@ -77,12 +133,11 @@ public class RestartActiveBundlesTask extends AbstractInstallTask {
                         bundle.start();
                         started++;
                         ctx.log("Started bundle {}", bundle);
-                        remove.add(id);
                     } catch (final BundleException e) {
                         getLogger().info("Unable to start bundle {} : {}", bundle, e.getMessage());
+                        keep[keepCount++] = id;
                     } catch (final IllegalStateException ie) {
                         getLogger().info("Unable to start bundle {} : {}", bundle, ie.getMessage());
-                        remove.add(id);
                     }
                 } else {
                     // bundle might be null(!)
@@ -91,10 +146,11 @@ public class RestartActiveBundlesTask extends AbstractInstallTask {
                                     "Bundle does not need restart: {} (state {})",
                                     bundle,
                                     (bundle == null ? "uninstalled" : bundle.getState()));
-                    remove.add(id);
                 }
             }
-            ids.removeAll(remove);
+            if (keepCount != ids.length) {
+                setIds(this.getResource(), Arrays.copyOf(keep, keepCount));
+            }
         }
         getLogger().debug("{} bundles were started", started);
     }
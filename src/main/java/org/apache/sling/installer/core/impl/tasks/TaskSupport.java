@@ -32,17 +32,64 @@ public class TaskSupport {
     /** The bundle context. */
     private final BundleContext bundleContext;
 
+    /** The bundle refresher, created lazily and shared by all tasks. */
+    private volatile BundleRefresher bundleRefresher;
+
+    /** The index of installed bundles. */
+    private final BundleIndex bundleIndex;
+
+    /** The tracker for the active bundles. */
+    private final ActiveBundleTracker activeBundleTracker;
+
+    /** The cache of bundle header metadata. */
+    private final BundleHeaderCache bundleHeaderCache;
+
+    /** The index of the installed bundle resources by location. */
+    private final BundleLocationIndex bundleLocationIndex;
+
     public TaskSupport(final BundleContext bc) {
         this.bundleContext = bc;
+        this.bundleIndex = new BundleIndex(bc);
+        this.activeBundleTracker = new ActiveBundleTracker(bc);
+        this.bundleHeaderCache = new BundleHeaderCache();
+        this.bundleLocationIndex = new BundleLocationIndex();
     }
 
     public BundleContext getBundleContext() {
         return this.bundleContext;
     }
 
+    public BundleIndex getBundleIndex() {
+        return this.bundleIndex;
+    }
+
+    public ActiveBundleTracker getActiveBundleTracker() {
+        return this.activeBundleTracker;
+    }
+
+    public BundleHeaderCache getBundleHeaderCache() {
+        return this.bundleHeaderCache;
+    }
+
+    public BundleLocationIndex getBundleLocationIndex() {
+        return this.bundleLocationIndex;
+    }
+
     public BundleRefresher getBundleRefresher() {
-        return new WABundleRefresher(
-                this.bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class),
-                this.bundleContext);
+        BundleRefresher refresher = this.bundleRefresher;
+        if (refresher == null) {
+            synchronized (this) {
+                refresher = this.bundleRefresher;
+                if (refresher == null) {
+                    refresher = new WABundleRefresher(
+                            this.bundleContext
+                                    .getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+                                    .adapt(FrameworkWiring.class),
+                            this.bundleContext);
+                    this.bundleRefresher = refresher;
+                }
+            }
+        }
+        return refresher;
     }
 }
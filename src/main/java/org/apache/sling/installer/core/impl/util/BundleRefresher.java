@@ -18,6 +18,7 @@
  */
 package org.apache.sling.installer.core.impl.util;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.sling.installer.api.tasks.InstallationContext;
@@ -31,4 +32,10 @@ public interface BundleRefresher {
     void refreshBundles(final InstallationContext ctx, final List<Bundle> bundles, boolean wait);
 
     boolean isInstallerBundleAffected(final List<Bundle> bundles);
+
+    /**
+     * Return the bundles which have been uninstalled or updated but are
+     * still wired to other bundles and therefore need a refresh.
+     */
+    Collection<Bundle> getRemovalPendingBundles();
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default implementation of the resource uri probe.
+ *
+ * File uris are checked through the file system, http(s) uris with a
+ * HEAD request and all other uris by opening a connection. Connecting and
+ * reading is bounded by a timeout and the results are cached for a
+ * limited time.
+ */
+public class DefaultResourceUriProbe implements ResourceUriProbe {
+
+    /** Default timeout for connecting and reading in milliseconds. */
+    public static final int DEFAULT_TIMEOUT = 5000;
+
+    /** Default time to live of a cached result in milliseconds. */
+    public static final long DEFAULT_TTL = 60000;
+
+    /** Maximum number of cached results. */
+    private static final int MAX_ENTRIES = 10000;
+
+    private static final class Result {
+
+        public final boolean accessible;
+
+        public final long expires;
+
+        public Result(final boolean accessible, final long expires) {
+            this.accessible = accessible;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<String, Result> cache = new ConcurrentHashMap<>();
+
+    private final int timeout;
+
+    private final long ttl;
+
+    public DefaultResourceUriProbe() {
+        this(DEFAULT_TIMEOUT, DEFAULT_TTL);
+    }
+
+    /**
+     * Create a probe.
+     * @param timeout The timeout for connecting and reading in milliseconds
+     * @param ttl The time to live of a cached result in milliseconds, {@code 0} disables caching.
+     */
+    public DefaultResourceUriProbe(final int timeout, final long ttl) {
+        this.timeout = timeout;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @see org.apache.sling.installer.core.impl.util.ResourceUriProbe#isAccessible(java.lang.String)
+     */
+    @Override
+    public boolean isAccessible(final String uri) {
+        final long now = System.currentTimeMillis();
+        final Result cached = this.cache.get(uri);
+        if (cached != null && cached.expires > now) {
+            return cached.accessible;
+        }
+        final boolean accessible = this.probe(uri);
+        if (this.ttl > 0) {
+            if (this.cache.size() >= MAX_ENTRIES) {
+                this.cache.clear();
+            }
+            this.cache.put(uri, new Result(accessible, now + this.ttl));
+        }
+        return accessible;
+    }
+
+    /**
+     * Check the uri without using the cache.
+     */
+    protected boolean probe(final String uri) {
+        try {
+            final URI u = new URI(uri);
+            if ("file".equals(u.getScheme())) {
+                return Files.isReadable(new File(u).toPath());
+            }
+            final URLConnection connection = u.toURL().openConnection();
+            if (connection instanceof HttpURLConnection) {
+                final HttpURLConnection http = (HttpURLConnection) connection;
+                http.setConnectTimeout(this.timeout);
+                http.setReadTimeout(this.timeout);
+                http.setRequestMethod("HEAD");
+                try {
+                    final int status = http.getResponseCode();
+                    if (status != HttpURLConnection.HTTP_BAD_METHOD) {
+                        return status >= 200 && status < 300;
+                    }
+                } finally {
+                    http.disconnect();
+                }
+                // server does not support HEAD, fall back to a GET request
+                return this.open(u.toURL().openConnection());
+            }
+            return this.open(connection);
+        } catch (final Exception notAccessible) {
+            return false;
+        }
+    }
+
+    /**
+     * Open and close the stream of the connection.
+     */
+    private boolean open(final URLConnection connection) throws IOException {
+        connection.setConnectTimeout(this.timeout);
+        connection.setReadTimeout(this.timeout);
+        final InputStream is = connection.getInputStream();
+        try {
+            is.close();
+        } catch (final IOException ignore) {
+            // ignore
+        }
+        return true;
+    }
+}
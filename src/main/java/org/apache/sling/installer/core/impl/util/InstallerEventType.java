@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Java Flight Recorder event types of the installer.
+ *
+ * The installer is compiled for Java 8, therefore the event types are
+ * defined at runtime through the {@code jdk.jfr.EventFactory} of Java 11
+ * and later, using reflection. If the flight recorder is not available
+ * or no recording has the event type enabled, {@link #begin()} returns
+ * an event which does nothing.
+ */
+public final class InstallerEventType {
+
+    private static final String PREFIX = "org.apache.sling.installer.";
+
+    private static final String[] CATEGORY = {"Apache Sling", "Installer"};
+
+    /** An installer cycle with the durations of its phases. */
+    public static final InstallerEventType CYCLE = new InstallerEventType(
+            "Cycle",
+            "Installer Cycle",
+            "A cycle of the OSGi installer",
+            field("cycle", long.class, "Cycle"),
+            field("executedTasks", long.class, "Executed Tasks"),
+            timespan("resourceUpdaters", "Resource Updaters"),
+            timespan("updateInfos", "Update Infos"),
+            timespan("merge", "Merge"),
+            timespan("transform", "Transform"),
+            timespan("computeTasks", "Compute Tasks"),
+            timespan("executeTasks", "Execute Tasks"),
+            timespan("persist", "Persist"));
+
+    /** The execution of an install task. */
+    public static final InstallerEventType TASK = new InstallerEventType(
+            "Task",
+            "Install Task",
+            "Execution of an install task",
+            field("taskClass", String.class, "Task Class"),
+            field("entityId", String.class, "Entity Id"),
+            field("sortKey", String.class, "Sort Key"),
+            field("state", String.class, "Resource State"),
+            field("failed", boolean.class, "Failed"));
+
+    /** The invocation of a resource transformer. */
+    public static final InstallerEventType TRANSFORM = new InstallerEventType(
+            "Transform",
+            "Resource Transformation",
+            "Invocation of a resource transformer",
+            field("transformer", String.class, "Transformer"),
+            field("url", String.class, "Resource URL"),
+            field("results", int.class, "Results"));
+
+    /** Writing the persistent resource list. */
+    public static final InstallerEventType PERSIST = new InstallerEventType(
+            "Persist",
+            "Resource List Write",
+            "Writing the persistent resource list",
+            field("file", String.class, "File"),
+            new Field("bytes", long.class, "Bytes", "jdk.jfr.DataAmount", "BYTES"));
+
+    /** Refreshing bundles and waiting for the refresh to finish, the bundle count is -1 for a full refresh. */
+    public static final InstallerEventType BUNDLE_REFRESH = new InstallerEventType(
+            "BundleRefresh",
+            "Bundle Refresh",
+            "Refreshing bundles, including the wait for the refresh to finish",
+            field("bundles", int.class, "Bundles"),
+            field("wait", boolean.class, "Wait"),
+            field("timedOut", boolean.class, "Timed Out"));
+
+    /** An event which does nothing. */
+    private static final Event NOOP = new Event(null);
+
+    private final Object factory;
+
+    private final Object eventType;
+
+    private InstallerEventType(final String name, final String label, final String description, final Field... fields) {
+        Object factory = null;
+        Object eventType = null;
+        if (Jfr.INSTANCE != null) {
+            try {
+                factory = Jfr.INSTANCE.createFactory(PREFIX + name, label, description, fields);
+                eventType = Jfr.INSTANCE.getEventType.invoke(factory);
+            } catch (final Exception e) {
+                LoggerFactory.getLogger(InstallerEventType.class)
+                        .debug("Unable to create flight recorder event type {}", name, e);
+                factory = null;
+                eventType = null;
+            }
+        }
+        this.factory = factory;
+        this.eventType = eventType;
+    }
+
+    private static Field field(final String name, final Class<?> type, final String label) {
+        return new Field(name, type, label, null, null);
+    }
+
+    private static Field timespan(final String name, final String label) {
+        return new Field(name, long.class, label, "jdk.jfr.Timespan", "NANOSECONDS");
+    }
+
+    /**
+     * Begin a new event. The event must be committed with the values of all fields
+     * in the order of the field definition.
+     * @return The event
+     */
+    public Event begin() {
+        if (this.eventType != null) {
+            try {
+                if ((Boolean) Jfr.INSTANCE.isEnabled.invoke(this.eventType)) {
+                    final Object event = Jfr.INSTANCE.newEvent.invoke(this.factory);
+                    Jfr.INSTANCE.begin.invoke(event);
+                    return new Event(event);
+                }
+            } catch (final Exception ignore) {
+                // ignore, no event is recorded
+            }
+        }
+        return NOOP;
+    }
+
+    /**
+     * An event of an installer event type.
+     */
+    public static final class Event {
+
+        private final Object event;
+
+        private Event(final Object event) {
+            this.event = event;
+        }
+
+        /**
+         * Whether the event is recorded. Callers can check this to avoid
+         * calculating the values if the event is not recorded.
+         */
+        public boolean isEnabled() {
+            return this.event != null;
+        }
+
+        /**
+         * End and commit the event.
+         * @param values The values of the fields
+         */
+        public void commit(final Object... values) {
+            if (this.event != null) {
+                try {
+                    Jfr.INSTANCE.end.invoke(this.event);
+                    for (int i = 0; i < values.length; i++) {
+                        Jfr.INSTANCE.set.invoke(this.event, i, values[i]);
+                    }
+                    Jfr.INSTANCE.commit.invoke(this.event);
+                } catch (final Exception ignore) {
+                    // ignore, the event is not recorded
+                }
+            }
+        }
+    }
+
+    private static final class Field {
+
+        final String name;
+
+        final Class<?> type;
+
+        final String label;
+
+        final String annotation;
+
+        final String annotationValue;
+
+        Field(
+                final String name,
+                final Class<?> type,
+                final String label,
+                final String annotation,
+                final String annotationValue) {
+            this.name = name;
+            this.type = type;
+            this.label = label;
+            this.annotation = annotation;
+            this.annotationValue = annotationValue;
+        }
+    }
+
+    /**
+     * Reflective access to the flight recorder API.
+     */
+    private static final class Jfr {
+
+        /** The flight recorder API or {@code null} if not available. */
+        static final Jfr INSTANCE = create();
+
+        final Constructor<?> annotationElement;
+
+        final Constructor<?> valueDescriptor;
+
+        final Method create;
+
+        final Method getEventType;
+
+        final Method isEnabled;
+
+        final Method newEvent;
+
+        final Method begin;
+
+        final Method end;
+
+        final Method set;
+
+        final Method commit;
+
+        private Jfr() throws Exception {
+            this.annotationElement = load("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+            this.valueDescriptor =
+                    load("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            final Class<?> eventFactory = load("jdk.jfr.EventFactory");
+            this.create = eventFactory.getMethod("create", List.class, List.class);
+            this.getEventType = eventFactory.getMethod("getEventType");
+            this.newEvent = eventFactory.getMethod("newEvent");
+            this.isEnabled = load("jdk.jfr.EventType").getMethod("isEnabled");
+            final Class<?> event = load("jdk.jfr.Event");
+            this.begin = event.getMethod("begin");
+            this.end = event.getMethod("end");
+            this.set = event.getMethod("set", int.class, Object.class);
+            this.commit = event.getMethod("commit");
+        }
+
+        private static Jfr create() {
+            try {
+                return new Jfr();
+            } catch (final Exception | LinkageError e) {
+                LoggerFactory.getLogger(InstallerEventType.class)
+                        .debug("Flight recorder is not available, installer events are disabled: {}", e.toString());
+                return null;
+            }
+        }
+
+        /**
+         * The flight recorder classes are loaded through the system class loader
+         * as the bundle does not import them.
+         */
+        private static Class<?> load(final String className) throws ClassNotFoundException {
+            return Class.forName(className, true, ClassLoader.getSystemClassLoader());
+        }
+
+        private Object annotation(final String className, final Object value) throws Exception {
+            return this.annotationElement.newInstance(load(className), value);
+        }
+
+        Object createFactory(final String name, final String label, final String description, final Field... fields)
+                throws Exception {
+            final List<Object> annotations = new ArrayList<>();
+            annotations.add(annotation("jdk.jfr.Name", name));
+            annotations.add(annotation("jdk.jfr.Label", label));
+            annotations.add(annotation("jdk.jfr.Description", description));
+            annotations.add(annotation("jdk.jfr.Category", CATEGORY.clone()));
+            annotations.add(annotation("jdk.jfr.StackTrace", Boolean.FALSE));
+            final List<Object> descriptors = new ArrayList<>();
+            for (final Field field : fields) {
+                final List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(annotation("jdk.jfr.Label", field.label));
+                if (field.annotation != null) {
+                    fieldAnnotations.add(annotation(field.annotation, field.annotationValue));
+                }
+                descriptors.add(this.valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+            return this.create.invoke(null, annotations, descriptors);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InstallerEventType[" + (this.eventType != null ? this.eventType : "unavailable") + "]";
+    }
+}
@@ -18,8 +18,9 @@
  */
 package org.apache.sling.installer.core.impl.util;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.osgi.framework.Bundle;
 import org.osgi.service.packageadmin.ExportedPackage;
@@ -43,7 +44,7 @@ class RefreshDependenciesUtil {
     boolean isBundleAffected(Bundle target, final List<Bundle> bundles) {
         log.debug("isBundleAffected({}, {})", target, bundles);
 
-        final List<Long> idChecked = new ArrayList<Long>();
+        final Set<Long> idChecked = new HashSet<Long>();
         for (Bundle b : bundles) {
             if (dependsOn(idChecked, target, b)) {
                 log.debug("isBundleAffected({}) is true, dependency on bundle {}", target, b);
@@ -56,12 +57,11 @@ class RefreshDependenciesUtil {
     }
 
     /** True if target depends on source via package imports */
-    private boolean dependsOn(List<Long> idChecked, Bundle target, Bundle source) {
+    private boolean dependsOn(Set<Long> idChecked, Bundle target, Bundle source) {
 
-        if (idChecked.contains(source.getBundleId())) {
+        if (!idChecked.add(source.getBundleId())) {
             return false;
         }
-        idChecked.add(source.getBundleId());
 
         final ExportedPackage[] eps = pckAdmin.getExportedPackages(source);
         if (eps == null) {
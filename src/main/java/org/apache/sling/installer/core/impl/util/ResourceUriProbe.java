@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.util;
+
+/**
+ * A probe checks whether the content of a resource uri
+ * (see {@link org.apache.sling.installer.api.InstallableResource#RESOURCE_URI_HINT})
+ * is accessible, without reading the content.
+ */
+public interface ResourceUriProbe {
+
+    /**
+     * Check if the uri is accessible.
+     * @param uri The uri
+     * @return {@code true} if the content can be read from the uri.
+     */
+    boolean isAccessible(String uri);
+}
@@ -60,6 +60,8 @@ public class WABundleRefresher implements BundleRefresher, FrameworkListener {
      */
     public void refreshBundles(final InstallationContext ctx, final List<Bundle> bundles, final boolean wait) {
         if (bundles == null || bundles.size() > 0) {
+            final InstallerEventType.Event event = InstallerEventType.BUNDLE_REFRESH.begin();
+            boolean timedOut = false;
             if (bundles == null) {
                 ctx.log("Full package refreshing");
             } else {
@@ -68,7 +70,10 @@ public class WABundleRefresher implements BundleRefresher, FrameworkListener {
             if (!wait) {
                 this.frameworkWiring.refreshBundles(bundles == null ? null : bundles);
             } else {
-                this.refreshEventCount = 0;
+                // the refresher is shared between tasks, reset the counter under the lock
+                synchronized (this.lock) {
+                    this.refreshEventCount = 0;
+                }
                 this.frameworkWiring.refreshBundles(bundles == null ? null : bundles, this);
                 final long end = System.currentTimeMillis() + (MAX_REFRESH_PACKAGES_WAIT_SECONDS * 1000);
                 do {
@@ -89,11 +94,13 @@ public class WABundleRefresher implements BundleRefresher, FrameworkListener {
                                                 + " seconds after refresh, aborting wait.",
                                         MAX_REFRESH_PACKAGES_WAIT_SECONDS);
                                 this.refreshEventCount++;
+                                timedOut = true;
                             }
                         }
                     }
                 } while (this.refreshEventCount < 1);
             }
+            event.commit(bundles == null ? -1 : bundles.size(), wait, timedOut);
             if (bundles == null) {
                 ctx.log("Done full package refresh");
             } else {
@@ -116,6 +123,13 @@ public class WABundleRefresher implements BundleRefresher, FrameworkListener {
         return false;
     }
 
+    /**
+     * @see org.apache.sling.installer.core.impl.util.BundleRefresher#getRemovalPendingBundles()
+     */
+    public Collection<Bundle> getRemovalPendingBundles() {
+        return this.frameworkWiring.getRemovalPendingBundles();
+    }
+
     /**
      * @see org.osgi.framework.FrameworkListener#frameworkEvent(org.osgi.framework.FrameworkEvent)
      */
@@ -18,7 +18,14 @@
  */
 package org.apache.sling.installer.core.impl;
 
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.event.InstallationListener;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TransformationResult;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -27,6 +34,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.osgi.framework.Version;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -67,4 +75,33 @@ public class EntityResourceListTest {
         verify(r1).updateResourceUri(argument.capture());
         assertEquals(NEW_URI, argument.getValue());
     }
+
+    private RegisteredResourceImpl createConfig(final String url) throws IOException {
+        final Dictionary<String, Object> data = new Hashtable<>();
+        data.put("foo", "bar");
+        new FileDataStore(new MockBundleContext());
+        final InstallableResource r = new InstallableResource(url, null, data, url, null, null);
+        final RegisteredResourceImpl rr = RegisteredResourceImpl.create(InternalResource.create("test", r));
+        final TransformationResult result = new TransformationResult();
+        result.setId("my.pid");
+        result.setResourceType(InstallableResource.TYPE_CONFIG);
+        return (RegisteredResourceImpl) rr.clone(result);
+    }
+
+    @Test
+    public void testOrderUpdatedAfterStateChange() throws IOException {
+        final EntityResourceList erl = new EntityResourceList("config:my.pid", listener);
+        final RegisteredResourceImpl a = createConfig("a/my.pid.cfg");
+        final RegisteredResourceImpl b = createConfig("b/my.pid.cfg");
+        erl.addOrUpdate(b);
+        erl.addOrUpdate(a);
+        assertSame(a, erl.getFirstResource());
+
+        b.setState(ResourceState.INSTALLED, null);
+        assertSame(b, erl.getFirstResource());
+        assertEquals(2, erl.getResources().size());
+
+        b.setState(ResourceState.INSTALL, null);
+        assertSame(a, erl.getFirstResource());
+    }
 }
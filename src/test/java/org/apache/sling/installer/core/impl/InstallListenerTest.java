@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.event.BatchInstallationListener;
+import org.apache.sling.installer.api.event.InstallationEvent;
+import org.apache.sling.installer.api.event.InstallationListener;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.BundleContext;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+public class InstallListenerTest {
+
+    private static InstallationEvent event(final InstallationEvent.TYPE type, final String name) {
+        return new InstallationEvent() {
+
+            @Override
+            public TYPE getType() {
+                return type;
+            }
+
+            @Override
+            public Object getSource() {
+                return name;
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    @Test
+    public void testDeliverKeepsOrderAndBatchesProcessedEvents() {
+        final List<String> received = new ArrayList<>();
+        final List<String> batched = new ArrayList<>();
+        final InstallationListener single = new InstallationListener() {
+
+            @Override
+            public void onEvent(final InstallationEvent event) {
+                received.add(event.toString());
+            }
+        };
+        final BatchInstallationListener batch = new BatchInstallationListener() {
+
+            @Override
+            public void onEvent(final InstallationEvent event) {
+                batched.add(event.toString());
+            }
+
+            @Override
+            public void onEvents(final List<InstallationEvent> events) {
+                batched.add(events.toString());
+            }
+        };
+        final List<InstallationEvent> events = Arrays.asList(
+                event(InstallationEvent.TYPE.STARTED, "start"),
+                event(InstallationEvent.TYPE.PROCESSED, "a"),
+                event(InstallationEvent.TYPE.PROCESSED, "b"),
+                event(InstallationEvent.TYPE.SUSPENDED, "suspend"),
+                event(InstallationEvent.TYPE.PROCESSED, "c"));
+
+        final InstallListener listener =
+                new InstallListener(Mockito.mock(BundleContext.class), LoggerFactory.getLogger(this.getClass()));
+        listener.deliver(new Object[] {single, batch}, events);
+
+        assertEquals(Arrays.asList("start", "a", "b", "suspend", "c"), received);
+        assertEquals(Arrays.asList("start", "[a, b]", "suspend", "[c]"), batched);
+    }
+
+    @Test
+    public void testProcessedEventKeepsValuesOfUninstalledResource() throws IOException {
+        final List<InstallationEvent> queued = new ArrayList<>();
+        final EntityResourceList group = new EntityResourceList("config:my.pid", new InstallationListener() {
+
+            @Override
+            public void onEvent(final InstallationEvent event) {
+                queued.add(event);
+            }
+        });
+        new FileDataStore(new MockBundleContext());
+        final Dictionary<String, Object> data = new Hashtable<>();
+        data.put("foo", "bar");
+        final InstallableResource r = new InstallableResource("a/my.pid.cfg", null, data, "1", null, null);
+        final TransformationResult result = new TransformationResult();
+        result.setId("my.pid");
+        result.setResourceType(InstallableResource.TYPE_CONFIG);
+        final RegisteredResourceImpl rr =
+                (RegisteredResourceImpl) RegisteredResourceImpl.create(InternalResource.create("test", r))
+                        .clone(result);
+        rr.setAttribute("attr", "value");
+        rr.setState(ResourceState.UNINSTALL, null);
+        group.addOrUpdate(rr);
+
+        // the resource is cleaned up before the queued event is delivered
+        group.setFinishState(ResourceState.UNINSTALLED);
+        rr.setAttribute("attr", "changed");
+        rr.setState(ResourceState.INSTALL, null);
+
+        final List<TaskResource> received = new ArrayList<>();
+        final InstallationListener l = new InstallationListener() {
+
+            @Override
+            public void onEvent(final InstallationEvent event) {
+                received.add((TaskResource) event.getSource());
+            }
+        };
+        final InstallListener listener =
+                new InstallListener(Mockito.mock(BundleContext.class), LoggerFactory.getLogger(this.getClass()));
+        listener.deliver(new Object[] {l}, queued);
+
+        assertEquals(1, received.size());
+        final TaskResource source = received.get(0);
+        assertNotSame(rr, source);
+        assertEquals("test:a/my.pid.cfg", source.getURL());
+        assertEquals("config:my.pid", source.getEntityId());
+        assertEquals(InstallableResource.TYPE_CONFIG, source.getType());
+        assertEquals(ResourceState.UNINSTALLED, source.getState());
+        assertEquals("value", source.getAttribute("attr"));
+        assertEquals("bar", source.getDictionary().get("foo"));
+        try {
+            source.setAttribute("attr", "other");
+            fail("Event source must be read-only");
+        } catch (final UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDispatcherIsRestartedAfterInterrupt() throws InterruptedException {
+        final InstallListener listener =
+                new InstallListener(Mockito.mock(BundleContext.class), LoggerFactory.getLogger(this.getClass()));
+        try {
+            listener.onEvent(event(InstallationEvent.TYPE.PROCESSED, "a"));
+            for (final Thread t : Thread.getAllStackTraces().keySet()) {
+                if ("Apache Sling Installer Event Dispatcher".equals(t.getName())) {
+                    t.interrupt();
+                    t.join();
+                }
+            }
+            // more events than the queue holds, this blocks if no dispatcher is running
+            for (int i = 0; i < 1500; i++) {
+                listener.onEvent(event(InstallationEvent.TYPE.PROCESSED, "e" + i));
+            }
+        } finally {
+            listener.dispose();
+        }
+    }
+}
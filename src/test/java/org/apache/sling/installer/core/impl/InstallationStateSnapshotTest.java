@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.event.InstallationListener;
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InstallationStateSnapshotTest {
+
+    private PersistentResourceList persistentList;
+
+    private RegisteredResourceImpl resource;
+
+    @Before
+    public void setup() throws IOException {
+        new FileDataStore(new MockBundleContext());
+        final File dataFile = File.createTempFile(getClass().getSimpleName(), ".ser");
+        dataFile.delete();
+        dataFile.deleteOnExit();
+        this.persistentList = new PersistentResourceList(dataFile, Mockito.mock(InstallationListener.class));
+
+        final Dictionary<String, Object> data = new Hashtable<>();
+        data.put("foo", "bar");
+        final InstallableResource r = new InstallableResource("a/my.pid.cfg", null, data, "1", null, null);
+        final RegisteredResource rr = this.persistentList.addOrUpdate(InternalResource.create("test", r));
+        final TransformationResult result = new TransformationResult();
+        result.setId("my.pid");
+        result.setResourceType(InstallableResource.TYPE_CONFIG);
+        this.persistentList.transform(rr, new TransformationResult[] {result});
+        this.resource = (RegisteredResourceImpl)
+                this.persistentList.getEntityResourceList("config:my.pid").getFirstResource();
+    }
+
+    @Test
+    public void testPublishedStateDoesNotChange() {
+        final InstallationStateSnapshot snapshot = new InstallationStateSnapshot();
+        final InstallationState state = snapshot.publish(this.persistentList);
+        assertEquals(1, state.getActiveResources().size());
+        assertTrue(state.getInstalledResources().isEmpty());
+        final Resource published =
+                state.getActiveResources().get(0).getResources().get(0);
+
+        // a later cycle installs the resource
+        this.resource.setState(ResourceState.INSTALLED, null);
+        this.resource.setAttribute("installed.by", "test");
+        this.resource.getDictionary().put("foo", "changed");
+        final InstallationState next = snapshot.publish(this.persistentList);
+
+        assertEquals(ResourceState.INSTALL, published.getState());
+        assertEquals(-1, published.getLastChange());
+        assertNull(published.getAttribute("installed.by"));
+        assertEquals("bar", published.getDictionary().get("foo"));
+        assertEquals(1, state.getActiveResources().size());
+        assertTrue(state.getInstalledResources().isEmpty());
+
+        assertTrue(next.getActiveResources().isEmpty());
+        final Resource current =
+                next.getInstalledResources().get(0).getResources().get(0);
+        assertEquals(ResourceState.INSTALLED, current.getState());
+        assertEquals("test", current.getAttribute("installed.by"));
+        assertEquals("changed", current.getDictionary().get("foo"));
+    }
+
+    @Test
+    public void testUnchangedGroupsAreReused() {
+        final InstallationStateSnapshot snapshot = new InstallationStateSnapshot();
+        final InstallationState state = snapshot.publish(this.persistentList);
+        final InstallationState next = snapshot.publish(this.persistentList);
+        assertSame(state.getActiveResources().get(0), next.getActiveResources().get(0));
+        assertSame(next, snapshot.get());
+
+        // an attribute change without a state change creates a new group
+        this.resource.setAttribute("installed.by", "test");
+        final InstallationState changed = snapshot.publish(this.persistentList);
+        assertEquals(
+                "test",
+                changed.getActiveResources().get(0).getResources().get(0).getAttribute("installed.by"));
+        assertNull(next.getActiveResources().get(0).getResources().get(0).getAttribute("installed.by"));
+    }
+}
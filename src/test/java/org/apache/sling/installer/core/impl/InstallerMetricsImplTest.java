@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import javax.management.openmbean.TabularData;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.event.InstallationListener;
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.apache.sling.installer.api.tasks.InstallTask;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.apache.sling.installer.core.impl.mocks.MockFileDataStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.BundleContext;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InstallerMetricsImplTest {
+
+    private PersistentResourceList persistentList;
+
+    private InstallerMetricsImpl metrics;
+
+    @Before
+    public void setup() throws IOException {
+        MockFileDataStore.set();
+        final File dataFile = File.createTempFile(getClass().getSimpleName(), ".ser");
+        dataFile.delete();
+        dataFile.deleteOnExit();
+        this.persistentList = new PersistentResourceList(dataFile, Mockito.mock(InstallationListener.class));
+        this.metrics = new InstallerMetricsImpl(this.persistentList);
+    }
+
+    @After
+    public void cleanup() {
+        MockFileDataStore.unset();
+    }
+
+    private RegisteredResourceImpl addConfig(final String pid) throws IOException {
+        final Dictionary<String, Object> data = new Hashtable<>();
+        data.put("foo", pid);
+        final InstallableResource r = new InstallableResource(pid + ".cfg", null, data, pid, null, null);
+        final RegisteredResource rr = this.persistentList.addOrUpdate(InternalResource.create("test", r));
+        final TransformationResult result = new TransformationResult();
+        result.setId(pid);
+        result.setResourceType(InstallableResource.TYPE_CONFIG);
+        this.persistentList.transform(rr, new TransformationResult[] {result});
+        return (RegisteredResourceImpl)
+                this.persistentList.getEntityResourceList("config:" + pid).getFirstResource();
+    }
+
+    private void publish(final InstallationStateSnapshot snapshot) {
+        final InstallationState state = snapshot.publish(this.persistentList);
+        this.metrics.setInstallationState(state, snapshot.getResourceCountByState(), snapshot.getResourceCountByType());
+    }
+
+    @Test
+    public void testResourceCounts() throws IOException {
+        final InstallationStateSnapshot snapshot = new InstallationStateSnapshot();
+        final RegisteredResourceImpl a = addConfig("a");
+        addConfig("b");
+        publish(snapshot);
+        assertEquals(2, this.metrics.getActiveResourceGroupCount());
+        assertEquals(0, this.metrics.getInstalledResourceGroupCount());
+        assertEquals(Integer.valueOf(2), this.metrics.getResourceCountByState().get(ResourceState.INSTALL));
+        assertEquals(Integer.valueOf(2), this.metrics.getResourceCountByType().get(InstallableResource.TYPE_CONFIG));
+
+        a.setState(ResourceState.INSTALLED, null);
+        publish(snapshot);
+        assertEquals(1, this.metrics.getActiveResourceGroupCount());
+        assertEquals(1, this.metrics.getInstalledResourceGroupCount());
+        assertEquals(Integer.valueOf(1), this.metrics.getResourceCountByState().get(ResourceState.INSTALL));
+        assertEquals(Integer.valueOf(1), this.metrics.getResourceCountByState().get(ResourceState.INSTALLED));
+
+        // removing an installed resource requires an uninstall
+        this.persistentList.remove(a.getURL());
+        publish(snapshot);
+        assertEquals(2, this.metrics.getActiveResourceGroupCount());
+        assertEquals(Integer.valueOf(1), this.metrics.getResourceCountByState().get(ResourceState.UNINSTALL));
+        assertNull(this.metrics.getResourceCountByState().get(ResourceState.INSTALLED));
+
+        a.setState(ResourceState.UNINSTALLED, null);
+        this.persistentList.compact();
+        publish(snapshot);
+        assertEquals(1, this.metrics.getActiveResourceGroupCount());
+        assertEquals(0, this.metrics.getInstalledResourceGroupCount());
+        assertNull(this.metrics.getResourceCountByState().get(ResourceState.UNINSTALLED));
+        assertEquals(Integer.valueOf(1), this.metrics.getResourceCountByType().get(InstallableResource.TYPE_CONFIG));
+    }
+
+    @Test
+    public void testTaskCounts() {
+        final InstallTask ok = Mockito.mock(InstallTask.class);
+        final InstallTask failing = Mockito.mock(InstallTask.class);
+        this.metrics.taskExecuted(ok, false);
+        this.metrics.taskExecuted(ok, false);
+        this.metrics.taskExecuted(failing, true);
+        assertEquals(3, this.metrics.getExecutedTaskCount());
+        assertEquals(1, this.metrics.getFailedTaskCount());
+        assertEquals(
+                Long.valueOf(3),
+                this.metrics.getExecutedTaskCountByClass().get(ok.getClass().getName()));
+        assertEquals(
+                Long.valueOf(1),
+                this.metrics.getFailedTaskCountByClass().get(failing.getClass().getName()));
+    }
+
+    @Test
+    public void testDataDirectorySize() throws IOException {
+        final long initial = this.metrics.getDataDirectorySize();
+        final File file = FileDataStore.SHARED.createNewDataFile("test", new ByteArrayInputStream(new byte[100]));
+        assertEquals(initial + 100, this.metrics.getDataDirectorySize());
+
+        // files not written through the data store are only seen on startup
+        final File external = FileDataStore.SHARED.getDataFile("external-" + System.nanoTime());
+        try (final FileOutputStream os = new FileOutputStream(external)) {
+            os.write(new byte[50]);
+        }
+        assertEquals(initial + 100, this.metrics.getDataDirectorySize());
+
+        assertTrue(FileDataStore.SHARED.deleteDataFile(file));
+        assertEquals(initial, this.metrics.getDataDirectorySize());
+        assertTrue(FileDataStore.SHARED.deleteDataFile(external));
+        assertEquals(initial - 50, this.metrics.getDataDirectorySize());
+    }
+
+    @Test
+    public void testMBean() throws IOException {
+        final InstallListener listener =
+                new InstallListener(Mockito.mock(BundleContext.class), LoggerFactory.getLogger(this.getClass()));
+        final InstallerMBeanImpl mbean = new InstallerMBeanImpl(this.metrics, listener);
+        addConfig("a");
+        publish(new InstallationStateSnapshot());
+        this.metrics.setPendingChanges(1, 2, 3);
+        this.metrics.cycleStarted();
+        this.metrics.phaseCompleted(PhaseStatistics.MERGE, 2_000_000L, 5);
+        this.metrics.taskExecuted(Mockito.mock(InstallTask.class), true);
+
+        assertEquals(1, mbean.getActiveResourceCount());
+        assertEquals(0, mbean.getInstalledResourceCount());
+        assertEquals(6, mbean.getPendingChangeCount());
+        assertEquals(1, mbean.getCycleCount());
+        assertEquals(1, mbean.getExecutedTaskCount());
+        assertEquals(1, mbean.getFailedTaskCount());
+        assertEquals(this.metrics.getDataDirectorySize(), mbean.getDataDirectorySize());
+
+        final TabularData phases = mbean.getPhaseStatistics();
+        assertEquals(1L, phases.get(new Object[] {PhaseStatistics.MERGE}).get("count"));
+        assertEquals(5L, phases.get(new Object[] {PhaseStatistics.MERGE}).get("itemCount"));
+
+        // the state follows the installer, not the queued events
+        try {
+            assertFalse(mbean.isActive());
+            listener.start();
+            assertTrue(mbean.isActive());
+            assertEquals(-1, mbean.getSuspendedSince());
+            listener.suspend();
+            assertFalse(mbean.isActive());
+            assertEquals(listener.getStateChangeTime(), mbean.getSuspendedSince());
+        } finally {
+            listener.dispose();
+        }
+    }
+}
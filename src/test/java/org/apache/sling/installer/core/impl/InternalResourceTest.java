@@ -20,18 +20,24 @@ package org.apache.sling.installer.core.impl;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Dictionary;
 import java.util.Hashtable;
 
+import org.apache.sling.installer.api.ContentSupplier;
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.core.impl.mocks.MockFileDataStore;
+import org.apache.sling.installer.core.impl.util.DefaultResourceUriProbe;
+import org.apache.sling.installer.core.impl.util.ResourceUriProbe;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Test for the installable resource.
@@ -43,11 +49,13 @@ public class InternalResourceTest {
     @Before
     public void setDataStore() {
         MockFileDataStore.set();
+        InternalResource.clearDictionaryCache();
     }
 
     @After
     public void unsetDataStore() {
         MockFileDataStore.unset();
+        InternalResource.setResourceUriProbe(new DefaultResourceUriProbe());
     }
 
     private Dictionary<String, Object> getSimpleDict() {
@@ -115,4 +123,143 @@ public class InternalResourceTest {
         assertEquals("hello world", ir.getDictionary().get("string.prop"));
         assertEquals(Boolean.TRUE, ir.getDictionary().get("value"));
     }
+
+    private InternalResource createProperties(final String content, final String digest) throws IOException {
+        return InternalResource.create(
+                SCHEME,
+                new InstallableResource(
+                        "my.component.cfg",
+                        new ByteArrayInputStream(content.getBytes("UTF-8")),
+                        null,
+                        digest,
+                        null,
+                        null));
+    }
+
+    @Test
+    public void testCachedDictionary() throws IOException {
+        final InternalResource first = createProperties("a=1", "digest-1");
+        assertEquals("1", first.getDictionary().get("a"));
+
+        // same content: the content is not parsed again
+        final InternalResource second = createProperties("a=1", "digest-2");
+        assertSame(first.getDictionary(), second.getDictionary());
+
+        // changed content with an unchanged provider digest, e.g. a timestamp
+        final InternalResource third = createProperties("a=3", "digest-1");
+        assertEquals("3", third.getDictionary().get("a"));
+
+        // private copies are independent
+        final Dictionary<String, Object> copy = first.getPrivateCopyOfDictionary();
+        copy.put("b", "x");
+        assertNull(second.getDictionary().get("b"));
+        assertEquals(first.getDigest(), second.getDigest());
+    }
+
+    @Test
+    public void testPrivateCopyOfCachedArrays() throws IOException {
+        final String content = "a=[\"1\",\"2\"]";
+        final InternalResource first = InternalResource.create(
+                SCHEME,
+                new InstallableResource(
+                        "my.component.config",
+                        new ByteArrayInputStream(content.getBytes("UTF-8")),
+                        null,
+                        "d1",
+                        null,
+                        null));
+        final InternalResource second = InternalResource.create(
+                SCHEME,
+                new InstallableResource(
+                        "my.component.config",
+                        new ByteArrayInputStream(content.getBytes("UTF-8")),
+                        null,
+                        "d1",
+                        null,
+                        null));
+        assertSame(first.getDictionary(), second.getDictionary());
+
+        final String[] values = (String[]) first.getPrivateCopyOfDictionary().get("a");
+        values[0] = "changed";
+        assertArrayEquals(new String[] {"1", "2"}, (String[])
+                second.getPrivateCopyOfDictionary().get("a"));
+    }
+
+    private InternalResource createWithResourceUri(final boolean accessible) throws IOException {
+        InternalResource.setResourceUriProbe(new ResourceUriProbe() {
+
+            @Override
+            public boolean isAccessible(final String uri) {
+                return accessible;
+            }
+        });
+        final Dictionary<String, Object> dict = new Hashtable<>();
+        dict.put(InstallableResource.RESOURCE_URI_HINT, "http://localhost/bundle.jar");
+        return InternalResource.create(
+                SCHEME,
+                new InstallableResource(
+                        "bundle.jar", new ByteArrayInputStream(new byte[] {1}), dict, "digest", null, null));
+    }
+
+    @Test
+    public void testResourceUriProbe() throws IOException {
+        assertEquals("http://localhost/bundle.jar", createWithResourceUri(true).getResourceUri());
+        assertNull(createWithResourceUri(false).getResourceUri());
+    }
+
+    private static final class CountingSupplier implements ContentSupplier {
+
+        private final String content;
+
+        public int opened;
+
+        public CountingSupplier(final String content) {
+            this.content = content;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            this.opened++;
+            return new ByteArrayInputStream(this.content.getBytes("UTF-8"));
+        }
+    }
+
+    @Test
+    public void testContentSupplierForFile() throws IOException {
+        final CountingSupplier first = new CountingSupplier("data");
+        final InternalResource ir1 =
+                InternalResource.create(SCHEME, InstallableResource.create("a.jar", first, null, "d1", null, null));
+        assertEquals(1, first.opened);
+        assertNotNull(ir1.getPrivateCopyOfFile());
+        assertEquals(InstallableResource.TYPE_FILE, ir1.getType());
+
+        // same digest: the data has already been copied
+        final CountingSupplier second = new CountingSupplier("data");
+        final InternalResource ir2 =
+                InternalResource.create(SCHEME, InstallableResource.create("a.jar", second, null, "d1", null, null));
+        assertEquals(0, second.opened);
+        assertEquals(ir1.getPrivateCopyOfFile(), ir2.getPrivateCopyOfFile());
+
+        // changed digest
+        final CountingSupplier third = new CountingSupplier("other");
+        InternalResource.create(SCHEME, InstallableResource.create("a.jar", third, null, "d2", null, null));
+        assertEquals(1, third.opened);
+    }
+
+    @Test
+    public void testContentSupplierForProperties() throws IOException {
+        final CountingSupplier first = new CountingSupplier("a=1");
+        final InternalResource ir1 = InternalResource.create(
+                SCHEME, InstallableResource.create("my.component.cfg", first, null, "d1", null, null));
+        assertEquals(1, first.opened);
+        assertEquals("1", ir1.getDictionary().get("a"));
+        assertNull(ir1.getContentSupplier());
+
+        // configurations are always read, but not parsed again
+        final CountingSupplier second = new CountingSupplier("a=1");
+        final InternalResource ir2 = InternalResource.create(
+                SCHEME, InstallableResource.create("my.component.cfg", second, null, "d1", null, null));
+        assertEquals(1, second.opened);
+        assertSame(ir1.getDictionary(), ir2.getDictionary());
+    }
 }
@@ -367,7 +367,11 @@ public class MockBundleContext implements BundleContext {
 
     @Override
     public Bundle getBundle(String location) {
-        // TODO Auto-generated method stub
+        for (Bundle bundle : this.bundles) {
+            if (location.equals(bundle.getLocation())) {
+                return bundle;
+            }
+        }
         return null;
     }
 
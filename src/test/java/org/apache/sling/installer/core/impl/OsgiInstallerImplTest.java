@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -32,6 +34,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 /** Partial tests of the OsgiInstallerImpl. A number of things
@@ -136,4 +139,32 @@ public class OsgiInstallerImplTest {
         // we might need to review this private files logic more broadly
         assertDataFiles(B, C, D);
     }
+
+    @Test
+    public void testUpdatesAreCoalescedPerEntity() {
+        for (int i = 0; i < 5; i++) {
+            final Dictionary<String, Object> dict = new Hashtable<>();
+            dict.put("value", i);
+            installer.resourceAddedOrUpdated("config", "pid.a", null, dict, null);
+        }
+        installer.resourceAddedOrUpdated("config", "pid.b", null, new Hashtable<String, Object>(), null);
+        assertEquals(2, installer.getMetrics().getUpdateInfoCount());
+
+        // a removal replaces the pending update
+        installer.resourceRemoved("config", "pid.a");
+        assertEquals(2, installer.getMetrics().getUpdateInfoCount());
+    }
+
+    @Test
+    public void testSupersededUpdateDataIsRemoved() {
+        for (int i = 0; i < 3; i++) {
+            installer.resourceAddedOrUpdated(
+                    "file", "data", new ByteArrayInputStream(new byte[] {(byte) i}), null, null);
+        }
+        assertEquals(1, installer.getMetrics().getUpdateInfoCount());
+        assertDataFiles("update");
+
+        installer.resourceRemoved("file", "data");
+        assertDataFiles();
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PhaseStatisticsImplTest {
+
+    @Test
+    public void testRecord() {
+        final PhaseStatisticsImpl stats = new PhaseStatisticsImpl(PhaseStatistics.MERGE);
+        stats.record(TimeUnit.MICROSECONDS.toNanos(500), 3);
+        stats.record(TimeUnit.MILLISECONDS.toNanos(7), 1);
+        stats.record(TimeUnit.MINUTES.toNanos(2), 10);
+
+        assertEquals(PhaseStatistics.MERGE, stats.getPhase());
+        assertEquals(3, stats.getCount());
+        assertEquals(500 + 7000 + 120000000, stats.getTotalTime());
+        assertEquals(120000000, stats.getMaxTime());
+        assertEquals(120000000, stats.getLastTime());
+        assertEquals(14, stats.getItemCount());
+        assertEquals(10, stats.getLastItemCount());
+
+        final long[] bounds = stats.getBucketBounds();
+        final long[] counts = stats.getBucketCounts();
+        assertEquals(bounds.length + 1, counts.length);
+        final long[] expected = new long[counts.length];
+        // 0 ms, 7 ms (<= 10 ms) and 120000 ms (unbounded)
+        expected[0] = 1;
+        expected[3] = 1;
+        expected[counts.length - 1] = 1;
+        assertArrayEquals(expected, counts);
+    }
+
+    @Test
+    public void testCopy() {
+        final PhaseStatisticsImpl stats = new PhaseStatisticsImpl(PhaseStatistics.PERSIST);
+        stats.record(1000, 1);
+        final PhaseStatistics copy = stats.copy();
+        stats.record(1000, 1);
+
+        assertEquals(1, copy.getCount());
+        assertEquals(2, stats.getCount());
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.sling.installer.core.impl;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,6 +27,11 @@ import java.io.InputStream;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.tasks.RegisteredResource;
@@ -34,8 +40,10 @@ import org.apache.sling.installer.api.tasks.TransformationResult;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -128,6 +136,28 @@ public class RegisteredResourceTest {
         assertEquals("RegisteredResource entity ID must match", "bundle:osgi-installer-testbundle", r.getEntityId());
     }
 
+    @org.junit.Test
+    public void testBundleManifestNotFirstEntry() throws Exception {
+        final Manifest m = new Manifest();
+        m.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        m.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, "manifest.last");
+        m.getMainAttributes().putValue(Constants.BUNDLE_VERSION, "1.2.3");
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (final ZipOutputStream zos = new ZipOutputStream(bos)) {
+            zos.putNextEntry(new ZipEntry("some/resource.txt"));
+            zos.write("content".getBytes("UTF-8"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+            m.write(zos);
+            zos.closeEntry();
+        }
+        final TaskResource r = create(new InstallableResource(
+                "test:last.jar", new ByteArrayInputStream(bos.toByteArray()), null, "digest", null, null));
+        assertEquals(InstallableResource.TYPE_BUNDLE, r.getType());
+        assertEquals("bundle:manifest.last", r.getEntityId());
+        assertEquals("1.2.3", r.getAttribute(Constants.BUNDLE_VERSION));
+    }
+
     //    @org.junit.Test
     public void testConfigEntity() throws Exception {
         final InstallableResource i = new InstallableResource(
@@ -179,6 +209,24 @@ public class RegisteredResourceTest {
                 create(r2).getDigest());
     }
 
+    @org.junit.Test
+    public void testVersionUpdatedWithAttribute() throws Exception {
+        final TaskResource r = create(new InstallableResource(
+                "configuration:versioned", null, new Hashtable<String, Object>(), null, null, null));
+        assertNull(r.getVersion());
+
+        r.setAttribute(Constants.BUNDLE_VERSION, "1.0.0.SNAPSHOT");
+        assertEquals(new Version("1.0.0.SNAPSHOT"), r.getVersion());
+        assertTrue(((RegisteredResourceImpl) r).isSnapshot());
+
+        r.setAttribute(Constants.BUNDLE_VERSION, "1.0.1");
+        assertEquals(new Version("1.0.1"), r.getVersion());
+        assertFalse(((RegisteredResourceImpl) r).isSnapshot());
+
+        r.setAttribute(Constants.BUNDLE_VERSION, null);
+        assertNull(r.getVersion());
+    }
+
     private TaskResource create(final InstallableResource is) throws IOException {
         new FileDataStore(new MockBundleContext());
         final InternalResource internal = InternalResource.create("test", is);
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.InstallTaskFactory;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.ServiceReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class TaskFactoryIndexTest {
+
+    @SuppressWarnings("unchecked")
+    private static ServiceReference<InstallTaskFactory> reference(
+            final SortingServiceTracker<InstallTaskFactory> tracker,
+            final InstallTaskFactory factory,
+            final Object types) {
+        final ServiceReference<InstallTaskFactory> ref = Mockito.mock(ServiceReference.class);
+        when(ref.getProperty(InstallTaskFactory.RESOURCE_TYPES)).thenReturn(types);
+        when(tracker.getService(ref)).thenReturn(factory);
+        return ref;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFactoriesByType() {
+        final SortingServiceTracker<InstallTaskFactory> tracker = Mockito.mock(SortingServiceTracker.class);
+        final InstallTaskFactory bundles = Mockito.mock(InstallTaskFactory.class);
+        final InstallTaskFactory all = Mockito.mock(InstallTaskFactory.class);
+        final InstallTaskFactory configs = Mockito.mock(InstallTaskFactory.class);
+        final List<ServiceReference<InstallTaskFactory>> refs = Arrays.asList(
+                reference(tracker, bundles, InstallableResource.TYPE_BUNDLE),
+                reference(tracker, all, null),
+                reference(tracker, configs, new String[] {InstallableResource.TYPE_CONFIG, "other"}),
+                reference(tracker, null, null));
+
+        final TaskFactoryIndex index = new TaskFactoryIndex(refs, tracker);
+        assertTrue(index.isIndexOf(refs));
+        assertEquals(Arrays.asList(bundles, all), index.getFactories(InstallableResource.TYPE_BUNDLE));
+        assertEquals(Arrays.asList(all, configs), index.getFactories(InstallableResource.TYPE_CONFIG));
+        assertEquals(Arrays.asList(all, configs), index.getFactories("other"));
+        assertEquals(Arrays.asList(all), index.getFactories("unknown"));
+    }
+}
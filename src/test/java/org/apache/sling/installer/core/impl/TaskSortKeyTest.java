@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TaskSortKeyTest {
+
+    @Test
+    public void testStringRepresentation() {
+        assertEquals("40-999-url", new TaskSortKey(40, 0, "url").toString());
+        assertEquals("40-005-url", new TaskSortKey(40, 5, "url").toString());
+        assertEquals("50-020-url", new TaskSortKey(50, 20, "url").toString());
+        assertEquals("50-1000-url", new TaskSortKey(50, 1000, "url").toString());
+        assertEquals("40-00-3-url", new TaskSortKey(40, -3, "url").toString());
+        assertEquals("07-url", new TaskSortKey(7, "url").toString());
+    }
+
+    @Test
+    public void testOrderingMatchesStringOrdering() {
+        final List<TaskSortKey> keys = new ArrayList<>();
+        for (final int phase : new int[] {7, 40, 50}) {
+            for (final int level : new int[] {-10, -1, 0, 1, 9, 10, 99, 100, 999, 1000, 12345}) {
+                keys.add(new TaskSortKey(phase, level, "a"));
+                keys.add(new TaskSortKey(phase, level, "b"));
+            }
+            keys.add(new TaskSortKey(phase, "a"));
+            keys.add(new TaskSortKey(phase, "999"));
+        }
+        for (final TaskSortKey k1 : keys) {
+            for (final TaskSortKey k2 : keys) {
+                assertEquals(
+                        k1 + " <> " + k2,
+                        Integer.signum(k1.toString().compareTo(k2.toString())),
+                        Integer.signum(k1.compareTo(k2)));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceTransformer;
+import org.apache.sling.installer.core.impl.mocks.MockFileDataStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class TransformerIndexTest {
+
+    @Before
+    public void setDataStore() {
+        MockFileDataStore.set();
+    }
+
+    @After
+    public void unsetDataStore() {
+        MockFileDataStore.unset();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServiceReference<ResourceTransformer> reference(
+            final long id, final Object types, final Object extensions) {
+        final ServiceReference<ResourceTransformer> ref = Mockito.mock(ServiceReference.class);
+        when(ref.getProperty(Constants.SERVICE_ID)).thenReturn(id);
+        when(ref.getProperty(ResourceTransformer.RESOURCE_TYPES)).thenReturn(types);
+        when(ref.getProperty(ResourceTransformer.URL_EXTENSIONS)).thenReturn(extensions);
+        return ref;
+    }
+
+    private static RegisteredResource resource(final String type, final String url) {
+        final RegisteredResource r = Mockito.mock(RegisteredResource.class);
+        when(r.getType()).thenReturn(type);
+        when(r.getURL()).thenReturn(url);
+        return r;
+    }
+
+    private static List<Long> ids(final List<TransformerIndex.Entry> entries) {
+        final List<Long> result = new ArrayList<>();
+        for (final TransformerIndex.Entry e : entries) {
+            result.add(e.id);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCandidates() {
+        final List<ServiceReference<ResourceTransformer>> refs = Arrays.asList(
+                reference(1, InstallableResource.TYPE_FILE, ".jar"),
+                reference(2, null, null),
+                reference(3, new String[] {InstallableResource.TYPE_PROPERTIES, "other"}, null),
+                reference(4, InstallableResource.TYPE_FILE, new String[] {".zip", ".far"}));
+        final TransformerIndex index = new TransformerIndex(refs);
+        assertTrue(index.isIndexOf(refs));
+
+        assertEquals(
+                Arrays.asList(1L, 2L), ids(index.getCandidates(resource(InstallableResource.TYPE_FILE, "a:b.jar"))));
+        assertEquals(
+                Arrays.asList(2L, 4L), ids(index.getCandidates(resource(InstallableResource.TYPE_FILE, "a:b.far"))));
+        assertEquals(Arrays.asList(2L), ids(index.getCandidates(resource(InstallableResource.TYPE_FILE, "a:b.txt"))));
+        assertEquals(
+                Arrays.asList(2L, 3L),
+                ids(index.getCandidates(resource(InstallableResource.TYPE_PROPERTIES, "a:b.cfg"))));
+    }
+
+    @Test
+    public void testInvoked() throws IOException {
+        final RegisteredResourceImpl r = RegisteredResourceImpl.create(InternalResource.create(
+                "test", new InstallableResource("a.cfg", null, new Hashtable<String, Object>(), null, null, null)));
+        assertFalse(TransformerIndex.isInvoked(r, 5));
+        TransformerIndex.setInvoked(r, 5);
+        TransformerIndex.setInvoked(r, 2);
+        TransformerIndex.setInvoked(r, 9);
+        assertTrue(TransformerIndex.isInvoked(r, 2));
+        assertTrue(TransformerIndex.isInvoked(r, 5));
+        assertTrue(TransformerIndex.isInvoked(r, 9));
+        assertFalse(TransformerIndex.isInvoked(r, 7));
+        // persisted in the format of older versions
+        assertEquals(":5:2:9:", r.getAttribute(ResourceTransformer.class.getName()));
+
+        // ids stored by older versions
+        r.setAttribute(ResourceTransformer.class.getName(), ":12:3:");
+        assertTrue(TransformerIndex.isInvoked(r, 3));
+        assertTrue(TransformerIndex.isInvoked(r, 12));
+        TransformerIndex.setInvoked(r, 7);
+        assertTrue(TransformerIndex.isInvoked(r, 7));
+        assertTrue(TransformerIndex.isInvoked(r, 12));
+        assertEquals(":12:3:7:", r.getAttribute(ResourceTransformer.class.getName()));
+    }
+}
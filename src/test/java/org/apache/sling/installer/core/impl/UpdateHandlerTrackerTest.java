@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import org.apache.sling.installer.api.UpdateHandler;
+import org.apache.sling.installer.api.info.InfoProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.url.URLStreamHandlerService;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+public class UpdateHandlerTrackerTest {
+
+    private BundleContext bundleContext;
+
+    private UpdateHandlerTracker tracker;
+
+    private ServiceListener listener;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        this.bundleContext = Mockito.mock(BundleContext.class);
+        when(this.bundleContext.registerService(
+                        eq(URLStreamHandlerService.class), any(URLStreamHandlerService.class), any()))
+                .thenReturn(Mockito.mock(ServiceRegistration.class));
+        this.tracker = new UpdateHandlerTracker(this.bundleContext, Mockito.mock(InfoProvider.class), null);
+        this.tracker.open();
+        final ArgumentCaptor<ServiceListener> captor = ArgumentCaptor.forClass(ServiceListener.class);
+        Mockito.verify(this.bundleContext).addServiceListener(captor.capture(), anyString());
+        this.listener = captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ServiceReference<UpdateHandler> register(
+            final UpdateHandler handler, final int ranking, final String... schemes) {
+        final ServiceReference<UpdateHandler> ref = Mockito.mock(ServiceReference.class);
+        when(ref.getProperty(UpdateHandler.PROPERTY_SCHEMES)).thenReturn(schemes);
+        when(ref.getProperty(Constants.OBJECTCLASS)).thenReturn(new String[] {UpdateHandler.class.getName()});
+        when(ref.getProperty(Constants.SERVICE_RANKING)).thenReturn(ranking);
+        when(ref.compareTo(any())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(final InvocationOnMock invocation) {
+                final ServiceReference<?> other =
+                        (ServiceReference<?>) invocation.getArguments()[0];
+                return Integer.compare(ranking, (Integer) other.getProperty(Constants.SERVICE_RANKING));
+            }
+        });
+        when(this.bundleContext.getService(ref)).thenReturn(handler);
+        this.listener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, ref));
+        return ref;
+    }
+
+    @Test
+    public void testHandlerAddedAndRemoved() {
+        assertNull(this.tracker.getHandler("a"));
+
+        final UpdateHandler low = Mockito.mock(UpdateHandler.class);
+        final ServiceReference<UpdateHandler> lowRef = register(low, 0, "a", "b");
+        assertSame(low, this.tracker.getHandler("a"));
+        assertSame(low, this.tracker.getHandler("b"));
+
+        // a higher ranked handler takes over its schemes
+        final UpdateHandler high = Mockito.mock(UpdateHandler.class);
+        final ServiceReference<UpdateHandler> highRef = register(high, 10, "a");
+        assertSame(high, this.tracker.getHandler("a"));
+        assertSame(low, this.tracker.getHandler("b"));
+
+        this.listener.serviceChanged(new ServiceEvent(ServiceEvent.UNREGISTERING, highRef));
+        assertSame(low, this.tracker.getHandler("a"));
+
+        this.listener.serviceChanged(new ServiceEvent(ServiceEvent.UNREGISTERING, lowRef));
+        assertNull(this.tracker.getHandler("a"));
+        assertNull(this.tracker.getHandler("b"));
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.InstallerMetrics;
+import org.apache.sling.installer.api.tasks.InstallTaskFactory;
+import org.apache.sling.installer.api.tasks.ResourceTransformer;
+import org.apache.sling.installer.core.impl.DefaultTransformer;
+import org.apache.sling.installer.core.impl.OsgiInstallerImpl;
+import org.osgi.framework.Constants;
+
+/**
+ * Drives a real {@link OsgiInstallerImpl} with synthetic bundles and
+ * configurations according to a {@link SimulationProfile}.
+ *
+ * The simulation consists of these phases, after each phase it waits
+ * until the installer is quiet, i.e. there are no pending changes and
+ * no active or untransformed resources:
+ * <ol>
+ *   <li>All bundles and configurations are registered with {@code registerResources}.</li>
+ *   <li>For each update round, some bundles get a new version, some configurations
+ *       are changed and some of both are removed through {@code updateResources}.</li>
+ *   <li>For each update round, some configurations are reported as changed by the
+ *       framework through {@code resourceAddedOrUpdated}.</li>
+ * </ol>
+ */
+public class InstallerSimulation {
+
+    private static final String SCHEME = "sim";
+
+    private static final String BUNDLE_PREFIX = "sim.bundle.";
+
+    private static final String CONFIG_PREFIX = "sim.config.";
+
+    private final SimulationProfile profile;
+
+    private final Random random;
+
+    /** The current version (micro part) by bundle index, -1 if removed. */
+    private int[] bundleVersions;
+
+    /** The current round by configuration index, -1 if removed. */
+    private int[] configRounds;
+
+    public InstallerSimulation(final SimulationProfile profile) {
+        this.profile = profile;
+        this.random = new Random(profile.seed);
+    }
+
+    /**
+     * Run the simulation.
+     * @return The report
+     * @throws IllegalStateException If the installer does not become quiet in time
+     */
+    public SimulationReport run() throws IOException, InterruptedException {
+        this.bundleVersions = new int[profile.bundles];
+        this.configRounds = new int[profile.configs];
+
+        final File directory = Files.createTempDirectory("installer-simulation").toFile();
+        final SimulationBundleContext ctx = new SimulationBundleContext(directory);
+        final OsgiInstallerImpl installer = new OsgiInstallerImpl(ctx);
+        final SimulatedTaskFactory factory = new SimulatedTaskFactory(profile, installer);
+        final DefaultTransformer bundleTransformer = new DefaultTransformer();
+        bundleTransformer.init(ctx, installer, installer);
+        register(ctx, ResourceTransformer.class.getName(), ResourceTransformer.NAME, "bundles", bundleTransformer);
+        register(
+                ctx,
+                ResourceTransformer.class.getName(),
+                ResourceTransformer.NAME,
+                "configs",
+                new SimulatedConfigTransformer());
+        register(ctx, InstallTaskFactory.class.getName(), InstallTaskFactory.NAME, "simulation", factory);
+
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        final SimulationReport report = new SimulationReport();
+        final long start = System.nanoTime();
+        installer.start();
+        try {
+            installer.registerResources(SCHEME, this.createInitialResources());
+            this.awaitQuiescence(installer, "register", report);
+
+            for (int round = 1; round <= profile.updateRounds; round++) {
+                final List<InstallableResource> updated = new ArrayList<>();
+                final List<String> removed = new ArrayList<>();
+                this.createUpdates(round, updated, removed);
+                installer.updateResources(
+                        SCHEME,
+                        updated.toArray(new InstallableResource[updated.size()]),
+                        removed.toArray(new String[removed.size()]));
+                this.awaitQuiescence(installer, "update-" + round, report);
+
+                for (int i = 0; i < configRounds.length; i++) {
+                    if (configRounds[i] != -1 && random.nextDouble() < profile.externalChangeRatio) {
+                        final Dictionary<String, Object> dict = createDictionary(i, configRounds[i]);
+                        dict.put("changed.by", "framework");
+                        installer.resourceAddedOrUpdated(
+                                InstallableResource.TYPE_CONFIG, CONFIG_PREFIX + i, null, dict, null);
+                    }
+                }
+                this.awaitQuiescence(installer, "external-" + round, report);
+            }
+            report.totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            final InstallerMetrics metrics = installer.getMetrics();
+            report.cycleCount = metrics.getCycleCount();
+            report.executedTaskCount = metrics.getExecutedTaskCount();
+            report.persistedBytes = metrics.getPersistedBytes();
+            report.dataDirectorySize = metrics.getDataDirectorySize();
+            report.installedGroupCount = metrics.getInstalledResourceGroupCount();
+            report.activeGroupCount = metrics.getActiveResourceGroupCount();
+            report.resourceCountByState = metrics.getResourceCountByState();
+            report.phaseStatistics = metrics.getPhaseStatistics();
+            report.installCount = factory.getInstallCount();
+            report.uninstallCount = factory.getUninstallCount();
+            report.failureCount = factory.getFailureCount();
+            for (final MemoryPoolMXBean pool : heapPools) {
+                report.peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+            for (final int version : bundleVersions) {
+                if (version != -1) {
+                    report.expectedEntityCount++;
+                }
+            }
+            for (final int round : configRounds) {
+                if (round != -1) {
+                    report.expectedEntityCount++;
+                }
+            }
+        } finally {
+            installer.deactivate();
+            delete(directory);
+        }
+        return report;
+    }
+
+    private static void register(
+            final SimulationBundleContext ctx,
+            final String clazz,
+            final String nameProperty,
+            final String name,
+            final Object service) {
+        final Dictionary<String, Object> props = new Hashtable<>();
+        props.put(nameProperty, name);
+        ctx.registerService(clazz, service, props);
+    }
+
+    private InstallableResource[] createInitialResources() throws IOException {
+        final InstallableResource[] result = new InstallableResource[profile.bundles + profile.configs];
+        for (int i = 0; i < profile.bundles; i++) {
+            result[i] = this.createBundle(i, 0);
+        }
+        for (int i = 0; i < profile.configs; i++) {
+            result[profile.bundles + i] = createConfig(i, 0);
+        }
+        return result;
+    }
+
+    private void createUpdates(final int round, final List<InstallableResource> updated, final List<String> removed)
+            throws IOException {
+        for (int i = 0; i < bundleVersions.length; i++) {
+            if (bundleVersions[i] != -1) {
+                final double value = random.nextDouble();
+                if (value < profile.removeRatio) {
+                    bundleVersions[i] = -1;
+                    removed.add(getBundleId(i));
+                } else if (value < profile.removeRatio + profile.updateRatio) {
+                    bundleVersions[i] = round;
+                    updated.add(this.createBundle(i, round));
+                }
+            }
+        }
+        for (int i = 0; i < configRounds.length; i++) {
+            if (configRounds[i] != -1) {
+                final double value = random.nextDouble();
+                if (value < profile.removeRatio) {
+                    configRounds[i] = -1;
+                    removed.add(getConfigId(i));
+                } else if (value < profile.removeRatio + profile.updateRatio) {
+                    configRounds[i] = round;
+                    updated.add(createConfig(i, round));
+                }
+            }
+        }
+    }
+
+    private static String getBundleId(final int index) {
+        return "bundles/" + BUNDLE_PREFIX + index + ".jar";
+    }
+
+    private static String getConfigId(final int index) {
+        return "configs/" + CONFIG_PREFIX + index + ".config";
+    }
+
+    private InstallableResource createBundle(final int index, final int round) throws IOException {
+        final String version = "1.0." + round;
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, BUNDLE_PREFIX + index);
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_VERSION, version);
+        final byte[] payload = new byte[profile.bundleSize];
+        random.nextBytes(payload);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(profile.bundleSize + 512);
+        try (final JarOutputStream jar = new JarOutputStream(out, manifest)) {
+            jar.putNextEntry(new ZipEntry("payload.bin"));
+            jar.write(payload);
+            jar.closeEntry();
+        }
+        return new InstallableResource(
+                getBundleId(index),
+                new ByteArrayInputStream(out.toByteArray()),
+                null,
+                version,
+                InstallableResource.TYPE_FILE,
+                null);
+    }
+
+    private static Dictionary<String, Object> createDictionary(final int index, final int round) {
+        final Dictionary<String, Object> dict = new Hashtable<>();
+        dict.put("index", index);
+        dict.put("round", round);
+        dict.put("name", CONFIG_PREFIX + index);
+        return dict;
+    }
+
+    private static InstallableResource createConfig(final int index, final int round) {
+        return new InstallableResource(
+                getConfigId(index),
+                null,
+                createDictionary(index, round),
+                null,
+                InstallableResource.TYPE_PROPERTIES,
+                null);
+    }
+
+    private void awaitQuiescence(final OsgiInstallerImpl installer, final String phase, final SimulationReport report)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(profile.timeoutMillis);
+        while (!isQuiet(installer)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Installer did not become quiet in phase " + phase + " within "
+                        + profile.timeoutMillis + " ms: " + installer.getInstallationState());
+            }
+            Thread.sleep(5);
+        }
+        report.phases.put(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static boolean isQuiet(final OsgiInstallerImpl installer) {
+        final InstallerMetrics metrics = installer.getMetrics();
+        if (metrics.getNewResourceCount() > 0
+                || metrics.getUpdateInfoCount() > 0
+                || metrics.getRemovedResourceCount() > 0) {
+            return false;
+        }
+        final InstallationState state = installer.getInstallationState();
+        return state.getActiveResources().isEmpty()
+                && state.getUntransformedResources().isEmpty();
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the installer simulation with a small profile. Larger profiles can be
+ * run by overriding the profile with system properties, e.g.
+ * {@code mvn test -Dtest=InstallerSimulationTest -Dsim.bundles=5000 -Dsim.configs=10000}
+ */
+public class InstallerSimulationTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Test
+    public void testSimulation() throws Exception {
+        final SimulationProfile profile = SimulationProfile.fromSystemProperties();
+        final SimulationReport report = new InstallerSimulation(profile).run();
+        logger.info("{}\n{}", profile, report);
+
+        assertEquals(0, report.getActiveGroupCount());
+        assertEquals(report.getExpectedEntityCount(), report.getInstalledGroupCount());
+        assertFalse(report.getResourceCountByState().containsKey(ResourceState.INSTALL));
+        assertFalse(report.getResourceCountByState().containsKey(ResourceState.UNINSTALL));
+        assertTrue(report.getCycleCount() > 0);
+        assertTrue(report.getPersistedBytes() > 0);
+        // the last cycle might still be running
+        assertTrue(report.getPhaseStatistics().get(PhaseStatistics.MERGE).getCount() >= report.getCycleCount() - 1);
+        assertTrue(
+                report.getPhaseStatistics().get(PhaseStatistics.EXECUTE_TASKS).getItemCount() > 0);
+    }
+
+    @Test
+    public void testSimulationWithFailures() throws Exception {
+        final SimulationProfile profile = new SimulationProfile();
+        profile.bundles = 100;
+        profile.configs = 100;
+        profile.updateRounds = 2;
+        profile.resolveLatencyMicros = 50;
+        profile.startLatencyMicros = 50;
+        profile.failureRate = 0.2;
+        final SimulationReport report = new InstallerSimulation(profile).run();
+
+        assertEquals(0, report.getActiveGroupCount());
+        assertEquals(report.getExpectedEntityCount(), report.getInstalledGroupCount());
+        assertTrue(report.getFailureCount() > 0);
+        assertTrue(report.getResourceCountByState().containsKey(ResourceState.IGNORED));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceTransformer;
+import org.apache.sling.installer.api.tasks.TransformationResult;
+
+/**
+ * Transformer for properties resources, standing in for the
+ * configuration factory. The pid is the last path segment of the
+ * url without the extension.
+ */
+public class SimulatedConfigTransformer implements ResourceTransformer {
+
+    @Override
+    public TransformationResult[] transform(final RegisteredResource resource) {
+        if (!InstallableResource.TYPE_PROPERTIES.equals(resource.getType())) {
+            return null;
+        }
+        final String url = resource.getURL();
+        String pid = url.substring(url.lastIndexOf('/') + 1);
+        final int pos = pid.lastIndexOf('.');
+        if (pos != -1) {
+            pid = pid.substring(0, pos);
+        }
+        final TransformationResult tr = new TransformationResult();
+        tr.setId(pid);
+        tr.setResourceType(InstallableResource.TYPE_CONFIG);
+        return new TransformationResult[] {tr};
+    }
+}
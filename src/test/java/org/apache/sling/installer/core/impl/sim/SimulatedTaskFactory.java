@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.InstallTask;
+import org.apache.sling.installer.api.tasks.InstallTaskFactory;
+import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.RetryHandler;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.api.tasks.TaskResourceGroup;
+
+/**
+ * Task factory standing in for the framework and configuration admin.
+ *
+ * Installing a bundle takes the resolve and the start latency, applying
+ * a configuration the configuration latency. An install fails with the
+ * configured failure rate, in that case a retry is scheduled like a
+ * framework event would do. After the maximum number of attempts the
+ * resource is ignored.
+ */
+public class SimulatedTaskFactory implements InstallTaskFactory {
+
+    private static final String ATTR_ATTEMPTS = SimulatedTaskFactory.class.getName() + ".attempts";
+
+    private final SimulationProfile profile;
+
+    private final RetryHandler retryHandler;
+
+    /** Only used by the installer thread. */
+    private final Random random;
+
+    private final AtomicLong installs = new AtomicLong();
+
+    private final AtomicLong uninstalls = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    public SimulatedTaskFactory(final SimulationProfile profile, final RetryHandler retryHandler) {
+        this.profile = profile;
+        this.retryHandler = retryHandler;
+        this.random = new Random(profile.seed);
+    }
+
+    @Override
+    public InstallTask createTask(final TaskResourceGroup group) {
+        final TaskResource rsrc = group.getActiveResource();
+        if (rsrc == null) {
+            return null;
+        }
+        if (!InstallableResource.TYPE_BUNDLE.equals(rsrc.getType())
+                && !InstallableResource.TYPE_CONFIG.equals(rsrc.getType())) {
+            return null;
+        }
+        return new SimulatedTask(group, rsrc);
+    }
+
+    /** Number of successful installs and updates. */
+    public long getInstallCount() {
+        return this.installs.get();
+    }
+
+    /** Number of uninstalls. */
+    public long getUninstallCount() {
+        return this.uninstalls.get();
+    }
+
+    /** Number of failed install attempts. */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    private static void sleep(final long micros) {
+        if (micros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+
+    private final class SimulatedTask extends InstallTask {
+
+        private final String sortKey;
+
+        public SimulatedTask(final TaskResourceGroup group, final TaskResource rsrc) {
+            super(group);
+            final String prefix;
+            if (rsrc.getState() == ResourceState.UNINSTALL) {
+                prefix = "10-";
+            } else if (InstallableResource.TYPE_CONFIG.equals(rsrc.getType())) {
+                prefix = "20-";
+            } else {
+                prefix = "40-";
+            }
+            this.sortKey = prefix + rsrc.getEntityId();
+        }
+
+        @Override
+        public void execute(final InstallationContext ctx) {
+            final TaskResource rsrc = this.getResource();
+            if (rsrc.getState() == ResourceState.UNINSTALL) {
+                uninstalls.incrementAndGet();
+                this.setFinishedState(ResourceState.UNINSTALLED);
+                return;
+            }
+            if (InstallableResource.TYPE_CONFIG.equals(rsrc.getType())) {
+                sleep(profile.configLatencyMicros);
+            } else {
+                sleep(profile.resolveLatencyMicros + profile.startLatencyMicros);
+            }
+            if (profile.failureRate > 0 && random.nextDouble() < profile.failureRate) {
+                failures.incrementAndGet();
+                final Integer previous = (Integer) rsrc.getTemporaryAttribute(ATTR_ATTEMPTS);
+                final int attempts = previous == null ? 1 : previous + 1;
+                rsrc.setTemporaryAttribute(ATTR_ATTEMPTS, attempts);
+                if (attempts >= profile.maxAttempts) {
+                    this.setFinishedState(
+                            ResourceState.IGNORED, null, "Simulated failure after " + attempts + " attempts");
+                } else {
+                    retryHandler.scheduleRetry();
+                }
+                return;
+            }
+            installs.incrementAndGet();
+            this.setFinishedState(ResourceState.INSTALLED);
+        }
+
+        @Override
+        public String getSortKey() {
+            return this.sortKey;
+        }
+    }
+}
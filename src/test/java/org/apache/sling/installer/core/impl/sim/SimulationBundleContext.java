@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.installer.core.impl.MockBundleContext;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Bundle context for the installer simulation.
+ *
+ * Services are kept in a simple registry which supports lookups by
+ * class name, no service events are sent. Therefore all services the
+ * installer should track must be registered before the installer is started.
+ * The data files are located in the provided directory.
+ */
+public class SimulationBundleContext extends MockBundleContext {
+
+    private final File dataDirectory;
+
+    private final Map<String, String> properties = new HashMap<>();
+
+    private final List<SimulationServiceRegistration> registrations = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong serviceIds = new AtomicLong();
+
+    public SimulationBundleContext(final File dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * Set a framework property.
+     */
+    public void setProperty(final String key, final String value) {
+        this.properties.put(key, value);
+    }
+
+    @Override
+    public String getProperty(final String key) {
+        return this.properties.get(key);
+    }
+
+    @Override
+    public File getDataFile(final String filename) {
+        return new File(this.dataDirectory, filename);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ServiceRegistration registerService(final String clazz, final Object service, final Dictionary props) {
+        return this.registerService(new String[] {clazz}, service, props);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ServiceRegistration registerService(final Class clazz, final Object service, final Dictionary props) {
+        return this.registerService(new String[] {clazz.getName()}, service, props);
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public ServiceRegistration registerService(final String[] clazzes, final Object service, final Dictionary props) {
+        final Map<String, Object> serviceProps = new HashMap<>();
+        if (props != null) {
+            final Enumeration<String> keys = props.keys();
+            while (keys.hasMoreElements()) {
+                final String key = keys.nextElement();
+                serviceProps.put(key, props.get(key));
+            }
+        }
+        serviceProps.put(Constants.OBJECTCLASS, clazzes.clone());
+        serviceProps.put(Constants.SERVICE_ID, this.serviceIds.incrementAndGet());
+        final SimulationServiceRegistration reg = new SimulationServiceRegistration(service, serviceProps);
+        this.registrations.add(reg);
+        return reg;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ServiceReference[] getServiceReferences(final String clazz, final String filter) {
+        final List<ServiceReference> result = new ArrayList<>();
+        for (final SimulationServiceRegistration reg : this.registrations) {
+            final String[] objectClass = (String[]) reg.reference.getProperty(Constants.OBJECTCLASS);
+            if (clazz == null || Arrays.asList(objectClass).contains(clazz)) {
+                result.add(reg.reference);
+            }
+        }
+        return result.isEmpty() ? null : result.toArray(new ServiceReference[result.size()]);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ServiceReference[] getAllServiceReferences(final String clazz, final String filter) {
+        return this.getServiceReferences(clazz, filter);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ServiceReference getServiceReference(final String clazz) {
+        final ServiceReference[] refs = this.getServiceReferences(clazz, null);
+        if (refs == null) {
+            return null;
+        }
+        Arrays.sort(refs);
+        return refs[refs.length - 1];
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Object getService(final ServiceReference reference) {
+        for (final SimulationServiceRegistration reg : this.registrations) {
+            if (reg.reference == reference) {
+                return reg.service;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean ungetService(final ServiceReference reference) {
+        return this.getService(reference) != null;
+    }
+
+    private final class SimulationServiceRegistration implements ServiceRegistration<Object> {
+
+        private final Object service;
+
+        private final SimulationServiceReference reference;
+
+        public SimulationServiceRegistration(final Object service, final Map<String, Object> props) {
+            this.service = service;
+            this.reference = new SimulationServiceReference(props);
+        }
+
+        @Override
+        public ServiceReference<Object> getReference() {
+            return this.reference;
+        }
+
+        @Override
+        public void setProperties(final Dictionary<String, ?> props) {
+            final Enumeration<String> keys = props.keys();
+            while (keys.hasMoreElements()) {
+                final String key = keys.nextElement();
+                if (!Constants.OBJECTCLASS.equals(key) && !Constants.SERVICE_ID.equals(key)) {
+                    this.reference.properties.put(key, props.get(key));
+                }
+            }
+        }
+
+        @Override
+        public void unregister() {
+            registrations.remove(this);
+        }
+    }
+
+    private static final class SimulationServiceReference implements ServiceReference<Object> {
+
+        private final Map<String, Object> properties;
+
+        public SimulationServiceReference(final Map<String, Object> properties) {
+            this.properties = new Hashtable<>(properties);
+        }
+
+        @Override
+        public Object getProperty(final String key) {
+            return this.properties.get(key);
+        }
+
+        @Override
+        public String[] getPropertyKeys() {
+            return this.properties.keySet().toArray(new String[0]);
+        }
+
+        // no @Override, only declared by newer framework versions
+        public Dictionary<String, Object> getProperties() {
+            return new Hashtable<>(this.properties);
+        }
+
+        @Override
+        public Bundle getBundle() {
+            return null;
+        }
+
+        @Override
+        public Bundle[] getUsingBundles() {
+            return null;
+        }
+
+        @Override
+        public boolean isAssignableTo(final Bundle bundle, final String className) {
+            return true;
+        }
+
+        private int getRanking() {
+            final Object ranking = this.properties.get(Constants.SERVICE_RANKING);
+            return ranking instanceof Integer ? (Integer) ranking : 0;
+        }
+
+        /**
+         * Same ordering as defined by the framework, a reference with a higher
+         * ranking or, for the same ranking, a lower service id is greater.
+         */
+        @Override
+        public int compareTo(final Object reference) {
+            final SimulationServiceReference other = (SimulationServiceReference) reference;
+            if (this.getRanking() != other.getRanking()) {
+                return this.getRanking() < other.getRanking() ? -1 : 1;
+            }
+            final long id = (Long) this.properties.get(Constants.SERVICE_ID);
+            final long otherId = (Long) other.properties.get(Constants.SERVICE_ID);
+            return id == otherId ? 0 : (id > otherId ? -1 : 1);
+        }
+    }
+}
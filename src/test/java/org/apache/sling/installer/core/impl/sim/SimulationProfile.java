@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+/**
+ * The deployment profile for an installer simulation.
+ *
+ * All values can be overridden with system properties using the
+ * {@code sim.} prefix and the field name, e.g. {@code -Dsim.bundles=5000}.
+ */
+public class SimulationProfile {
+
+    /** Number of bundles registered initially. */
+    public int bundles = 500;
+
+    /** Number of configurations registered initially. */
+    public int configs = 500;
+
+    /** Size of the payload entry of each synthetic bundle in bytes. */
+    public int bundleSize = 1024;
+
+    /** Number of update rounds after the initial registration. */
+    public int updateRounds = 1;
+
+    /** Ratio of the bundles and configurations which are changed in each update round. */
+    public double updateRatio = 0.1;
+
+    /** Ratio of the bundles and configurations which are removed in each update round. */
+    public double removeRatio = 0.02;
+
+    /** Ratio of the configurations which are changed through the framework in each update round. */
+    public double externalChangeRatio = 0.05;
+
+    /** Simulated time to resolve a bundle in microseconds. */
+    public long resolveLatencyMicros = 0;
+
+    /** Simulated time to start a bundle in microseconds. */
+    public long startLatencyMicros = 0;
+
+    /** Simulated time to apply a configuration in microseconds. */
+    public long configLatencyMicros = 0;
+
+    /** Probability that an install or update of a resource fails. */
+    public double failureRate = 0;
+
+    /** Number of failed attempts after which a resource is ignored. */
+    public int maxAttempts = 3;
+
+    /** Seed for all random decisions. */
+    public long seed = 42;
+
+    /** Maximum time to wait for the installer to become quiet in milliseconds. */
+    public long timeoutMillis = 10 * 60 * 1000;
+
+    /**
+     * Create a profile with the defaults overridden by the system properties.
+     */
+    public static SimulationProfile fromSystemProperties() {
+        final SimulationProfile profile = new SimulationProfile();
+        profile.bundles = Integer.getInteger("sim.bundles", profile.bundles);
+        profile.configs = Integer.getInteger("sim.configs", profile.configs);
+        profile.bundleSize = Integer.getInteger("sim.bundleSize", profile.bundleSize);
+        profile.updateRounds = Integer.getInteger("sim.updateRounds", profile.updateRounds);
+        profile.updateRatio = getDouble("sim.updateRatio", profile.updateRatio);
+        profile.removeRatio = getDouble("sim.removeRatio", profile.removeRatio);
+        profile.externalChangeRatio = getDouble("sim.externalChangeRatio", profile.externalChangeRatio);
+        profile.resolveLatencyMicros = Long.getLong("sim.resolveLatencyMicros", profile.resolveLatencyMicros);
+        profile.startLatencyMicros = Long.getLong("sim.startLatencyMicros", profile.startLatencyMicros);
+        profile.configLatencyMicros = Long.getLong("sim.configLatencyMicros", profile.configLatencyMicros);
+        profile.failureRate = getDouble("sim.failureRate", profile.failureRate);
+        profile.maxAttempts = Integer.getInteger("sim.maxAttempts", profile.maxAttempts);
+        profile.seed = Long.getLong("sim.seed", profile.seed);
+        profile.timeoutMillis = Long.getLong("sim.timeoutMillis", profile.timeoutMillis);
+        return profile;
+    }
+
+    private static double getDouble(final String key, final double defaultValue) {
+        final String value = System.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationProfile[bundles=" + bundles + ", configs=" + configs + ", bundleSize=" + bundleSize
+                + ", updateRounds=" + updateRounds + ", updateRatio=" + updateRatio + ", removeRatio=" + removeRatio
+                + ", externalChangeRatio=" + externalChangeRatio + ", resolveLatencyMicros=" + resolveLatencyMicros
+                + ", startLatencyMicros=" + startLatencyMicros + ", configLatencyMicros=" + configLatencyMicros
+                + ", failureRate=" + failureRate + ", maxAttempts=" + maxAttempts + ", seed=" + seed + "]";
+    }
+}
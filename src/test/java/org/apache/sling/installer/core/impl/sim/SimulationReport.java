@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.sim;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.PhaseStatistics;
+import org.apache.sling.installer.api.tasks.ResourceState;
+
+/**
+ * The result of an installer simulation.
+ */
+public class SimulationReport {
+
+    /** The time until the installer became quiet, by phase in milliseconds. */
+    final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /** The total time until the installer became quiet after the last phase in milliseconds. */
+    long totalMillis;
+
+    long cycleCount;
+
+    long executedTaskCount;
+
+    long installCount;
+
+    long uninstallCount;
+
+    long failureCount;
+
+    long persistedBytes;
+
+    long dataDirectorySize;
+
+    /** Sum of the peak usages of all heap memory pools. */
+    long peakHeapBytes;
+
+    /** The number of registered entities which have not been removed. */
+    int expectedEntityCount;
+
+    int installedGroupCount;
+
+    int activeGroupCount;
+
+    Map<ResourceState, Integer> resourceCountByState = Collections.emptyMap();
+
+    Map<String, PhaseStatistics> phaseStatistics = Collections.emptyMap();
+
+    public Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(this.phases);
+    }
+
+    public long getTotalMillis() {
+        return this.totalMillis;
+    }
+
+    public long getCycleCount() {
+        return this.cycleCount;
+    }
+
+    public long getExecutedTaskCount() {
+        return this.executedTaskCount;
+    }
+
+    public long getInstallCount() {
+        return this.installCount;
+    }
+
+    public long getUninstallCount() {
+        return this.uninstallCount;
+    }
+
+    public long getFailureCount() {
+        return this.failureCount;
+    }
+
+    public long getPersistedBytes() {
+        return this.persistedBytes;
+    }
+
+    public long getDataDirectorySize() {
+        return this.dataDirectorySize;
+    }
+
+    public long getPeakHeapBytes() {
+        return this.peakHeapBytes;
+    }
+
+    public int getExpectedEntityCount() {
+        return this.expectedEntityCount;
+    }
+
+    public int getInstalledGroupCount() {
+        return this.installedGroupCount;
+    }
+
+    public int getActiveGroupCount() {
+        return this.activeGroupCount;
+    }
+
+    public Map<ResourceState, Integer> getResourceCountByState() {
+        return this.resourceCountByState;
+    }
+
+    public Map<String, PhaseStatistics> getPhaseStatistics() {
+        return this.phaseStatistics;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Installer simulation:\n");
+        for (final Map.Entry<String, Long> entry : this.phases.entrySet()) {
+            sb.append("  phase ")
+                    .append(entry.getKey())
+                    .append(": ")
+                    .append(entry.getValue())
+                    .append(" ms\n");
+        }
+        sb.append("  total time to quiescence: ").append(this.totalMillis).append(" ms\n");
+        sb.append("  cycles: ").append(this.cycleCount).append('\n');
+        sb.append("  executed tasks: ").append(this.executedTaskCount).append('\n');
+        sb.append("  installs: ")
+                .append(this.installCount)
+                .append(", uninstalls: ")
+                .append(this.uninstallCount)
+                .append(", failures: ")
+                .append(this.failureCount)
+                .append('\n');
+        sb.append("  persisted bytes: ").append(this.persistedBytes).append('\n');
+        sb.append("  data directory size: ").append(this.dataDirectorySize).append('\n');
+        sb.append("  peak heap: ").append(this.peakHeapBytes).append('\n');
+        sb.append("  resource groups: ")
+                .append(this.installedGroupCount)
+                .append(" installed, ")
+                .append(this.activeGroupCount)
+                .append(" active, ")
+                .append(this.expectedEntityCount)
+                .append(" expected\n");
+        sb.append("  resources by state: ").append(this.resourceCountByState);
+        for (final PhaseStatistics stats : this.phaseStatistics.values()) {
+            sb.append("\n  cycle phase ")
+                    .append(stats.getPhase())
+                    .append(": ")
+                    .append(stats.getCount())
+                    .append(" runs, ")
+                    .append(stats.getTotalTime() / 1000)
+                    .append(" ms total, ")
+                    .append(stats.getMaxTime() / 1000)
+                    .append(" ms max, ")
+                    .append(stats.getItemCount())
+                    .append(" items");
+        }
+        return sb.toString();
+    }
+}
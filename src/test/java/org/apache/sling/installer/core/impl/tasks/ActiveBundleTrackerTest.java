@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Arrays;
+import java.util.Hashtable;
+
+import org.apache.sling.installer.core.impl.MockBundleContext;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+public class ActiveBundleTrackerTest {
+
+    private static Bundle bundle(final long id, final int state, final String fragmentHost) {
+        final Bundle b = Mockito.mock(Bundle.class);
+        when(b.getBundleId()).thenReturn(id);
+        when(b.getState()).thenReturn(state);
+        final Hashtable<String, String> headers = new Hashtable<>();
+        if (fragmentHost != null) {
+            headers.put(Constants.FRAGMENT_HOST, fragmentHost);
+        }
+        when(b.getHeaders("")).thenReturn(headers);
+        return b;
+    }
+
+    @Test
+    public void testInitialScanAndEvents() {
+        final ActiveBundleTracker tracker = new ActiveBundleTracker(new MockBundleContext(Arrays.asList(
+                bundle(0, Bundle.ACTIVE, null),
+                bundle(3, Bundle.ACTIVE, null),
+                bundle(1, Bundle.ACTIVE, null),
+                bundle(2, Bundle.RESOLVED, null),
+                bundle(4, Bundle.RESOLVED, "host"))));
+        assertArrayEquals(new long[] {1, 3}, tracker.getActiveBundleIds());
+
+        tracker.bundleChanged(new BundleEvent(BundleEvent.STARTED, bundle(2, Bundle.ACTIVE, null)));
+        assertArrayEquals(new long[] {1, 2, 3}, tracker.getActiveBundleIds());
+
+        tracker.bundleChanged(new BundleEvent(BundleEvent.STOPPED, bundle(1, Bundle.RESOLVED, null)));
+        tracker.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, bundle(3, Bundle.UNINSTALLED, null)));
+        assertArrayEquals(new long[] {2}, tracker.getActiveBundleIds());
+    }
+
+    @Test
+    public void testArrayOperations() {
+        final long[] ids = new long[] {2, 5};
+        assertSame(ids, ActiveBundleTracker.add(ids, 5));
+        assertArrayEquals(new long[] {1, 2, 5}, ActiveBundleTracker.add(ids, 1));
+        assertArrayEquals(new long[] {2, 5, 7}, ActiveBundleTracker.add(ids, 7));
+        assertSame(ids, ActiveBundleTracker.remove(ids, 3));
+        assertArrayEquals(new long[] {5}, ActiveBundleTracker.remove(ids, 2));
+        assertSame(ids, ActiveBundleTracker.merge(ids, new long[0]));
+        assertArrayEquals(new long[] {1, 2, 4, 5}, ActiveBundleTracker.merge(ids, new long[] {1, 2, 4}));
+    }
+}
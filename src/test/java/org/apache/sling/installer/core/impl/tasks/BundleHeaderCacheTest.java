@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Hashtable;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BundleHeaderCacheTest {
+
+    private static Bundle bundle(final long id, final String fragmentHost) {
+        final Bundle b = Mockito.mock(Bundle.class);
+        when(b.getBundleId()).thenReturn(id);
+        when(b.getHeaders("")).thenReturn(headers(fragmentHost));
+        return b;
+    }
+
+    private static Hashtable<String, String> headers(final String fragmentHost) {
+        final Hashtable<String, String> headers = new Hashtable<>();
+        if (fragmentHost != null) {
+            headers.put(Constants.FRAGMENT_HOST, fragmentHost);
+        }
+        return headers;
+    }
+
+    @Test
+    public void testHeadersAreCached() {
+        final BundleHeaderCache cache = new BundleHeaderCache();
+        final Bundle b = bundle(1, "host");
+        assertEquals("host", cache.getFragmentHostHeader(b));
+        assertFalse(cache.isSystemBundleFragment(b));
+        assertFalse(cache.isLazyActivatian(b));
+        verify(b, times(1)).getHeaders("");
+    }
+
+    @Test
+    public void testUpdatedInvalidatesEntry() {
+        final BundleHeaderCache cache = new BundleHeaderCache();
+        final Bundle b = bundle(1, "host");
+        assertEquals("host", cache.getFragmentHostHeader(b));
+
+        // the update turns the fragment into a regular bundle
+        when(b.getHeaders("")).thenReturn(headers(null));
+        assertEquals("host", cache.getFragmentHostHeader(b));
+        cache.bundleChanged(new BundleEvent(BundleEvent.UPDATED, b));
+        assertNull(cache.getFragmentHostHeader(b));
+    }
+
+    @Test
+    public void testUninstalledInvalidatesEntry() {
+        final BundleHeaderCache cache = new BundleHeaderCache();
+        final Bundle b = bundle(1, "system.bundle; extension:=framework");
+        assertTrue(cache.isSystemBundleFragment(b));
+        cache.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, b));
+
+        // a new bundle reusing the id must not see the old headers
+        final Bundle other = bundle(1, null);
+        assertFalse(cache.isSystemBundleFragment(other));
+        assertNull(cache.getFragmentHostHeader(other));
+    }
+
+    @Test
+    public void testOtherEventsKeepEntry() {
+        final BundleHeaderCache cache = new BundleHeaderCache();
+        final Bundle b = bundle(1, "host");
+        cache.getFragmentHostHeader(b);
+        cache.bundleChanged(new BundleEvent(BundleEvent.STARTED, b));
+        cache.getFragmentHostHeader(b);
+        verify(b, times(1)).getHeaders("");
+    }
+}
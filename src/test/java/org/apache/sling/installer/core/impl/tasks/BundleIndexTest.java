@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.sling.installer.core.impl.MockBundleContext;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class BundleIndexTest {
+
+    private static Bundle bundle(final long id, final String symbolicName, final String version) {
+        final Bundle b = Mockito.mock(Bundle.class);
+        when(b.getBundleId()).thenReturn(id);
+        when(b.getSymbolicName()).thenReturn(symbolicName);
+        when(b.getVersion()).thenReturn(new Version(version));
+        return b;
+    }
+
+    @Test
+    public void testMatchingBundle() {
+        final List<Bundle> bundles = new ArrayList<>();
+        final Bundle a1 = bundle(1, "a", "1.0");
+        final Bundle a2 = bundle(2, "a", "2.0");
+        final Bundle b1 = bundle(3, "b", "1.0");
+        bundles.add(a1);
+        bundles.add(a2);
+        bundles.add(b1);
+        final BundleIndex index = new BundleIndex(new MockBundleContext(bundles));
+
+        assertSame(a2, index.getMatchingBundle("a", null));
+        assertSame(a1, index.getMatchingBundle("a", "1.0"));
+        assertNull(index.getMatchingBundle("a", "3.0"));
+        assertSame(b1, index.getMatchingBundle("b", null));
+        assertNull(index.getMatchingBundle("c", null));
+        assertEquals(2, index.getBundles("a").size());
+        assertSame(a2, index.getBundles("a").get(0));
+    }
+
+    @Test
+    public void testBundleEvents() {
+        final BundleIndex index = new BundleIndex(new MockBundleContext());
+        assertTrue(index.getBundles("a").isEmpty());
+
+        final Bundle a1 = bundle(1, "a", "1.0");
+        index.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, a1));
+        assertSame(a1, index.getMatchingBundle("a", null));
+
+        final Bundle a2 = bundle(2, "a", "2.0");
+        index.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, a2));
+        assertSame(a2, index.getMatchingBundle("a", null));
+
+        // update changes the symbolic name of the bundle
+        when(a2.getSymbolicName()).thenReturn("b");
+        index.bundleChanged(new BundleEvent(BundleEvent.UPDATED, a2));
+        assertSame(a1, index.getMatchingBundle("a", null));
+        assertSame(a2, index.getMatchingBundle("b", null));
+
+        index.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, a1));
+        assertNull(index.getMatchingBundle("a", null));
+        assertSame(a2, index.getMatchingBundle("b", null));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Hashtable;
+
+import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.core.impl.EntityResourceList;
+import org.apache.sling.installer.core.impl.MockBundleResource;
+import org.apache.sling.installer.core.impl.RegisteredResourceImpl;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+public class BundleLocationIndexTest {
+
+    private static TaskResource resource(final String location, final ResourceState state) {
+        final TaskResource r = Mockito.mock(TaskResource.class);
+        when(r.getAttribute(AbstractBundleTask.ATTRIBUTE_BUNDLE_LOCATION)).thenReturn(location);
+        when(r.getState()).thenReturn(state);
+        return r;
+    }
+
+    @Test
+    public void testOnlyInstalledResourcesAreAdded() {
+        final BundleLocationIndex index = new BundleLocationIndex();
+        index.add(resource("a", ResourceState.INSTALL));
+        index.add(resource(null, ResourceState.INSTALLED));
+        assertEquals(0, index.size());
+
+        final TaskResource a = resource("a", ResourceState.INSTALLED);
+        index.add(a);
+        assertSame(a, index.getInstalledResource("a"));
+        assertNull(index.getInstalledResource("b"));
+    }
+
+    @Test
+    public void testStaleEntryIsDropped() {
+        final BundleLocationIndex index = new BundleLocationIndex();
+        final TaskResource a = resource("a", ResourceState.INSTALLED);
+        index.add(a);
+        when(a.getState()).thenReturn(ResourceState.UNINSTALLED);
+        assertNull(index.getInstalledResource("a"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        final BundleLocationIndex index = new BundleLocationIndex();
+        final TaskResource a = resource("a", ResourceState.INSTALLED);
+        final TaskResource b = resource("a", ResourceState.INSTALLED);
+        index.add(a);
+        index.add(b);
+
+        // a resource which has been replaced for the location does not remove the entry
+        index.remove(a);
+        assertSame(b, index.getInstalledResource("a"));
+        index.remove(b);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testBundleUninstalled() {
+        final BundleLocationIndex index = new BundleLocationIndex();
+        index.add(resource("a", ResourceState.INSTALLED));
+        index.add(resource("b", ResourceState.INSTALLED));
+
+        final Bundle bundle = Mockito.mock(Bundle.class);
+        when(bundle.getLocation()).thenReturn("a");
+        index.bundleChanged(new BundleEvent(BundleEvent.STOPPED, bundle));
+        assertEquals(2, index.size());
+        index.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, bundle));
+        assertEquals(1, index.size());
+        assertNull(index.getInstalledResource("a"));
+    }
+
+    @Test
+    public void testIndexFollowsBundleTasks() throws Exception {
+        final Bundle bundle = Mockito.mock(Bundle.class);
+        when(bundle.getBundleId()).thenReturn(5L);
+        when(bundle.getSymbolicName()).thenReturn("test.bundle");
+        when(bundle.getVersion()).thenReturn(new Version("1.0"));
+        when(bundle.getState()).thenReturn(Bundle.RESOLVED);
+        final Hashtable<String, String> headers = new Hashtable<>();
+        // a fragment is installed without starting it
+        headers.put(Constants.FRAGMENT_HOST, "host");
+        when(bundle.getHeaders("")).thenReturn(headers);
+        final BundleContext bundleContext = Mockito.mock(BundleContext.class);
+        when(bundleContext.getBundles()).thenReturn(new Bundle[] {bundle});
+        when(bundleContext.installBundle(Mockito.anyString(), Mockito.any())).thenReturn(bundle);
+        final TaskSupport support = new TaskSupport(bundleContext);
+
+        final EntityResourceList group = new EntityResourceList("bundle:test.bundle", new MockInstallationListener());
+        final RegisteredResourceImpl resource =
+                new MockBundleResource("test.bundle", "1.0").getRegisteredResourceImpl();
+        group.addOrUpdate(resource);
+        final String location = resource.getURL();
+
+        new BundleInstallTask(group, support).execute(Mockito.mock(InstallationContext.class));
+        assertEquals(ResourceState.INSTALLED, resource.getState());
+        assertSame(resource, support.getBundleLocationIndex().getInstalledResource(location));
+
+        resource.setState(ResourceState.UNINSTALL, null);
+        new BundleRemoveTask(group, support).execute(Mockito.mock(InstallationContext.class));
+        assertEquals(ResourceState.UNINSTALLED, resource.getState());
+        assertEquals(0, support.getBundleLocationIndex().size());
+    }
+}
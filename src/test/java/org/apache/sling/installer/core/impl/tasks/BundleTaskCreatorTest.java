@@ -34,6 +34,7 @@ import org.apache.sling.installer.api.tasks.ResourceState;
 import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.core.impl.EntityResourceList;
 import org.apache.sling.installer.core.impl.MockBundleResource;
+import org.apache.sling.installer.core.impl.RegisteredResourceImpl;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.osgi.framework.Bundle;
@@ -41,6 +42,7 @@ import org.osgi.framework.startlevel.BundleStartLevel;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -164,6 +166,25 @@ public class BundleTaskCreatorTest {
         }
     }
 
+    @Test
+    public void testRemovedResourceLeavesLocationIndex() throws IOException {
+        final MockBundleResource r = new MockBundleResource(SN, "1.0");
+        r.setState(ResourceState.INSTALLED);
+        final RegisteredResourceImpl rr = r.getRegisteredResourceImpl();
+        AbstractBundleTask.setBundleLocation(rr, "test:bundle.jar");
+
+        final MockBundleTaskCreator c = new MockBundleTaskCreator();
+        c.addBundleInfo(SN, "1.0", Bundle.ACTIVE);
+        c.getBundleLocationIndex().add(rr);
+        assertSame(rr, c.getBundleLocationIndex().getInstalledResource("test:bundle.jar"));
+
+        rr.setState(ResourceState.UNINSTALL, null);
+        final EntityResourceList erl = new EntityResourceList(rr.getEntityId(), new MockInstallationListener());
+        erl.addOrUpdate(rr);
+        assertTrue(c.createTask(erl) instanceof BundleRemoveTask);
+        assertEquals(0, c.getBundleLocationIndex().size());
+    }
+
     @Test
     public void testBundleRemoveMultiple() throws IOException {
         final MockBundleResource[] r = {
@@ -70,6 +70,8 @@ public class BundleUpdateTaskTest {
         when(bundleContext.getBundles()).thenReturn(bundles.toArray(new Bundle[0]));
         // Setup task support
         when(taskSupport.getBundleContext()).thenReturn(bundleContext);
+        final BundleIndex bundleIndex = new BundleIndex(taskSupport.getBundleContext());
+        when(taskSupport.getBundleIndex()).thenReturn(bundleIndex);
         // Setup resource with proper InputStream
         MockBundleResource resource = new MockBundleResource(BUNDLE_SYMBOLIC_NAME, BUNDLE_VERSION) {
             @Override
@@ -113,6 +115,9 @@ public class BundleUpdateTaskTest {
         when(bundleContext.getBundles()).thenReturn(bundles.toArray(new Bundle[0]));
         // Setup task support
         when(taskSupport.getBundleContext()).thenReturn(bundleContext);
+        final BundleIndex bundleIndex = new BundleIndex(taskSupport.getBundleContext());
+        when(taskSupport.getBundleIndex()).thenReturn(bundleIndex);
+        when(taskSupport.getBundleLocationIndex()).thenReturn(new BundleLocationIndex());
         // Setup resource with proper InputStream
         MockBundleResource resource = new MockBundleResource(BUNDLE_SYMBOLIC_NAME, BUNDLE_VERSION) {
             @Override
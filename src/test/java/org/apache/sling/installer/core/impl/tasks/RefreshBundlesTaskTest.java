@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.core.impl.util.BundleRefresher;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RefreshBundlesTaskTest {
+
+    @Mock
+    private BundleContext bundleContext;
+
+    @Mock
+    private BundleRefresher refresher;
+
+    @Mock
+    private InstallationContext installationContext;
+
+    @Mock
+    private TaskSupport taskSupport;
+
+    @Mock
+    private Bundle removed;
+
+    @Mock
+    private Bundle remaining;
+
+    @Mock
+    private Bundle pending;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRemovedBundleRefreshesRemovalPendingBundlesOnly() {
+        when(removed.getBundleId()).thenReturn(10L);
+        when(remaining.getBundleId()).thenReturn(11L);
+        when(pending.getBundleId()).thenReturn(12L);
+        when(taskSupport.getBundleContext()).thenReturn(bundleContext);
+        when(taskSupport.getBundleRefresher()).thenReturn(refresher);
+        when(bundleContext.getBundle(10L)).thenReturn(null);
+        when(bundleContext.getBundle(11L)).thenReturn(remaining);
+        when(refresher.getRemovalPendingBundles()).thenReturn(Arrays.asList(pending, remaining));
+
+        RefreshBundlesTask.markBundleForRefresh(installationContext, taskSupport, removed);
+        RefreshBundlesTask.markBundleForRefresh(installationContext, taskSupport, remaining);
+        new RefreshBundlesTask(taskSupport).execute(installationContext);
+
+        final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(refresher).refreshBundles(eq(installationContext), captor.capture(), eq(true));
+        final List<Bundle> refreshed = captor.getValue();
+        assertEquals(2, refreshed.size());
+        assertTrue(refreshed.contains(remaining));
+        assertTrue(refreshed.contains(pending));
+    }
+
+    @Test
+    public void testRemovedUnwiredBundleDoesNotRefresh() {
+        when(removed.getBundleId()).thenReturn(20L);
+        when(taskSupport.getBundleContext()).thenReturn(bundleContext);
+        when(taskSupport.getBundleRefresher()).thenReturn(refresher);
+        when(bundleContext.getBundle(20L)).thenReturn(null);
+        when(refresher.getRemovalPendingBundles()).thenReturn(Collections.<Bundle>emptyList());
+
+        RefreshBundlesTask.markBundleForRefresh(installationContext, taskSupport, removed);
+        new RefreshBundlesTask(taskSupport).execute(installationContext);
+
+        verify(refresher, never()).refreshBundles(any(InstallationContext.class), anyList(), anyBoolean());
+    }
+}
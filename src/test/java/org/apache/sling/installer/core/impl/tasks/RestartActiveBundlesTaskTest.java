@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.tasks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.api.tasks.TaskResourceGroup;
+import org.apache.sling.installer.core.impl.MockBundleContext;
+import org.apache.sling.installer.core.impl.MockBundleResource;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RestartActiveBundlesTaskTest {
+
+    private static Bundle bundle(final long id, final int state) {
+        final Bundle b = Mockito.mock(Bundle.class);
+        when(b.getBundleId()).thenReturn(id);
+        when(b.getState()).thenReturn(state);
+        when(b.getHeaders("")).thenReturn(new Hashtable<String, String>());
+        return b;
+    }
+
+    @Test
+    public void testIdsArePersistedAsSet() throws BundleException {
+        final Bundle active = bundle(1, Bundle.ACTIVE);
+        final Bundle stopped = bundle(2, Bundle.RESOLVED);
+        final Bundle failing = bundle(3, Bundle.RESOLVED);
+        doThrow(new BundleException("failed")).when(failing).start();
+        final TaskSupport support = new TaskSupport(new MockBundleContext(Arrays.asList(active, stopped, failing)));
+
+        final TaskResource resource = new MockBundleResource("restart", "1.0");
+        // left over from the last run, in the format of older versions
+        resource.setAttribute("bundles", new HashSet<>(Arrays.asList(2L, 3L)));
+        final TaskResourceGroup group = Mockito.mock(TaskResourceGroup.class);
+        when(group.getActiveResource()).thenReturn(resource);
+
+        final RestartActiveBundlesTask task = new RestartActiveBundlesTask(group, support);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), resource.getAttribute("bundles"));
+
+        task.execute(Mockito.mock(InstallationContext.class));
+        verify(stopped).start();
+        assertEquals(Collections.singleton(3L), resource.getAttribute("bundles"));
+
+        when(failing.getState()).thenReturn(Bundle.ACTIVE);
+        new RestartActiveBundlesTask(group, support).execute(Mockito.mock(InstallationContext.class));
+        assertNull(resource.getAttribute("bundles"));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultResourceUriProbeTest {
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile String lastMethod;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                lastMethod = exchange.getRequestMethod();
+                final String path = exchange.getRequestURI().getPath();
+                final int status;
+                if (path.equals("/bundle.jar")) {
+                    status = 200;
+                } else if (path.equals("/nohead.jar")) {
+                    status = "HEAD".equals(lastMethod) ? 405 : 200;
+                } else {
+                    status = 404;
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private String url(final String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    public void testHttp() {
+        final ResourceUriProbe probe = new DefaultResourceUriProbe(1000, 0);
+        assertTrue(probe.isAccessible(url("/bundle.jar")));
+        assertEquals("HEAD", lastMethod);
+        assertFalse(probe.isAccessible(url("/missing.jar")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testHttpWithoutHead() {
+        final ResourceUriProbe probe = new DefaultResourceUriProbe(1000, 0);
+        assertTrue(probe.isAccessible(url("/nohead.jar")));
+        assertEquals("GET", lastMethod);
+    }
+
+    @Test
+    public void testCachedResults() {
+        final ResourceUriProbe probe = new DefaultResourceUriProbe(1000, 60000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(probe.isAccessible(url("/bundle.jar")));
+            assertFalse(probe.isAccessible(url("/missing.jar")));
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        final ResourceUriProbe probe = new DefaultResourceUriProbe(1000, 0);
+        final File file = File.createTempFile("probe", ".jar");
+        try {
+            assertTrue(probe.isAccessible(file.toURI().toString()));
+        } finally {
+            file.delete();
+        }
+        assertFalse(probe.isAccessible(file.toURI().toString()));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void testInvalidUri() {
+        final ResourceUriProbe probe = new DefaultResourceUriProbe(1000, 0);
+        assertFalse(probe.isAccessible("not a uri"));
+        assertFalse(probe.isAccessible("unknownscheme:/foo"));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.util;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class InstallerEventTypeTest {
+
+    @Test
+    public void testNotRecording() {
+        final InstallerEventType.Event event = InstallerEventType.PERSIST.begin();
+        assertFalse(event.isEnabled());
+        // no-op
+        event.commit("file", 1L);
+    }
+
+    /**
+     * The flight recorder API is used through reflection as the tests are compiled for Java 8.
+     */
+    @Test
+    public void testRecording() throws Exception {
+        final Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (final ClassNotFoundException e) {
+            assumeTrue("Flight recorder not available", false);
+            return;
+        }
+        final File file = File.createTempFile("installer", ".jfr");
+        file.deleteOnExit();
+        final Object recording = recordingClass.getConstructor().newInstance();
+        try {
+            recordingClass.getMethod("enable", String.class).invoke(recording, "org.apache.sling.installer.Persist");
+            recordingClass.getMethod("start").invoke(recording);
+
+            final InstallerEventType.Event event = InstallerEventType.PERSIST.begin();
+            assertTrue(event.isEnabled());
+            event.commit("/tmp/resources.ser", 42L);
+
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file.toPath());
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+
+        final Method readAllEvents =
+                Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+        final List<Object> persisted = new ArrayList<>();
+        for (final Object recorded : (List<?>) readAllEvents.invoke(null, file.toPath())) {
+            final Object type = recorded.getClass().getMethod("getEventType").invoke(recorded);
+            if ("org.apache.sling.installer.Persist"
+                    .equals(type.getClass().getMethod("getName").invoke(type))) {
+                persisted.add(recorded);
+            }
+        }
+        assertEquals(1, persisted.size());
+        final Method getValue = persisted.get(0).getClass().getMethod("getValue", String.class);
+        assertEquals("/tmp/resources.ser", getValue.invoke(persisted.get(0), "file"));
+        assertEquals(42L, getValue.invoke(persisted.get(0), "bytes"));
+    }
+}